@@ -1,8 +1,8 @@
 package org.yetyman.controls.treeview;
 
 public enum AlignmentMethod {
-    //faster, simpler, less error-prone
+    //faster, simpler, less error-prone. the scroll bar counts rows, whatever their heights
     INDEX,
-    //slower for longer distances from the visible cell, but more natural
+    //the scroll bar counts pixels, from the heights rows were measured at and an estimate for rows not seen yet
     LENGTH;
 }
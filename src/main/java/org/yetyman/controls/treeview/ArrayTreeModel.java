@@ -0,0 +1,392 @@
+package org.yetyman.controls.treeview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * a {@link TreeModel} that keeps the whole topology in int arrays, around sixty bytes a node, so trees of tens of
+ * millions of nodes fit where one {@link TreeItem} per node wouldn't.
+ * nodes are numbered in the order they're added, starting with the root at 0. the handles of a removed subtree are
+ * not reused and shouldn't be passed in again.
+ */
+public class ArrayTreeModel<T> implements TreeModel<T> {
+    private static final int NONE = -1;
+
+    private int size = 0;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+    private int[] previousSibling;
+    private Object[] values;
+    private final BitSet expanded = new BitSet();
+
+    /**
+     * rows the node's descendants take while it is expanded, whether or not it is. a change is carried up as a
+     * difference through the expanded ancestors, so every change costs O(depth) and every read O(1).
+     */
+    private int[] expandedRows;
+
+    /**
+     * each node's children in the order they were added, removed ones included, with two fenwick trees over them. one
+     * holds the rows each child takes, itself and its visible descendants, and the other whether it's still there, so
+     * a node's position among its siblings and the rows before it are sums over the slots before its own, O(log
+     * siblings) however wide the parent is. indexed by parent, null until a node's first child.
+     */
+    private int[] slots;
+    private int[] slotCounts;
+    private int[][] childSlots;
+    private int[][] childRowTrees;
+    private int[][] childLiveTrees;
+
+    /**
+     * row, trusted while the node's stamp matches epoch. it follows from the parent's, so reading a run of rows after
+     * a change only settles their shared ancestors once.
+     */
+    private int[] visibleIndexes;
+    private int[] stamps;
+    private int epoch = 1;
+    private int[] stack = new int[16];
+
+    private final List<IntConsumer> listeners = new ArrayList<>();
+    private final List<StructureListener> structureListeners = new ArrayList<>();
+
+    public ArrayTreeModel(T rootValue) {
+        this(rootValue, 16);
+    }
+
+    public ArrayTreeModel(T rootValue, int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        lastChild = new int[capacity];
+        nextSibling = new int[capacity];
+        previousSibling = new int[capacity];
+        values = new Object[capacity];
+        expandedRows = new int[capacity];
+        slots = new int[capacity];
+        slotCounts = new int[capacity];
+        childSlots = new int[capacity][];
+        childRowTrees = new int[capacity][];
+        childLiveTrees = new int[capacity][];
+        visibleIndexes = new int[capacity];
+        stamps = new int[capacity];
+        append(NONE, rootValue);
+    }
+
+    /**
+     * adds a node as the last child of parentNode and returns its handle
+     */
+    public int addChild(int parentNode, T value) {
+        checkNode(parentNode);
+        int node = append(parentNode, value);
+        rowsChanged(parentNode, 1);
+        for (StructureListener listener : structureListeners)
+            listener.childAdded(parentNode, node);
+        fireChanged(parentNode);
+        return node;
+    }
+
+    /**
+     * removes the node and everything under it
+     */
+    public void remove(int node) {
+        checkNode(node);
+        int p = parent[node];
+        if (p == NONE)
+            throw new IllegalArgumentException("the root can't be removed");
+        for (StructureListener listener : structureListeners)
+            listener.childRemoving(p, node);
+        int rows = 1 + visibleDescendantCount(node);
+        //the slot stays, counting nothing
+        Fenwick.add(childRowTrees[p], slotCounts[p], slots[node], -rows);
+        Fenwick.add(childLiveTrees[p], slotCounts[p], slots[node], -1);
+
+        if (previousSibling[node] != NONE)
+            nextSibling[previousSibling[node]] = nextSibling[node];
+        else
+            firstChild[p] = nextSibling[node];
+        if (nextSibling[node] != NONE)
+            previousSibling[nextSibling[node]] = previousSibling[node];
+        else
+            lastChild[p] = previousSibling[node];
+        parent[node] = NONE;
+        nextSibling[node] = NONE;
+        previousSibling[node] = NONE;
+
+        rowsChanged(p, -rows);
+        fireChanged(p);
+    }
+
+    public void setValue(int node, T value) {
+        checkNode(node);
+        values[node] = value;
+        fireChanged(node);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int append(int parentNode, T value) {
+        if (size == parent.length)
+            grow();
+        int node = size++;
+        parent[node] = parentNode;
+        firstChild[node] = NONE;
+        lastChild[node] = NONE;
+        nextSibling[node] = NONE;
+        previousSibling[node] = NONE;
+        values[node] = value;
+        expandedRows[node] = 0;
+        stamps[node] = 0;
+
+        if (parentNode != NONE) {
+            int last = lastChild[parentNode];
+            previousSibling[node] = last;
+            if (last != NONE)
+                nextSibling[last] = node;
+            else
+                firstChild[parentNode] = node;
+            lastChild[parentNode] = node;
+
+            int slot = slotCounts[parentNode]++;
+            slots[node] = slot;
+            if (childSlots[parentNode] == null)
+                childSlots[parentNode] = new int[4];
+            else if (slot == childSlots[parentNode].length)
+                childSlots[parentNode] = Arrays.copyOf(childSlots[parentNode], slot * 2);
+            childSlots[parentNode][slot] = node;
+            childRowTrees[parentNode] = Fenwick.append(childRowTrees[parentNode], slot, 1);
+            childLiveTrees[parentNode] = Fenwick.append(childLiveTrees[parentNode], slot, 1);
+        }
+        return node;
+    }
+
+    private void grow() {
+        int capacity = parent.length * 2;
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        lastChild = Arrays.copyOf(lastChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        previousSibling = Arrays.copyOf(previousSibling, capacity);
+        values = Arrays.copyOf(values, capacity);
+        expandedRows = Arrays.copyOf(expandedRows, capacity);
+        slots = Arrays.copyOf(slots, capacity);
+        slotCounts = Arrays.copyOf(slotCounts, capacity);
+        childSlots = Arrays.copyOf(childSlots, capacity);
+        childRowTrees = Arrays.copyOf(childRowTrees, capacity);
+        childLiveTrees = Arrays.copyOf(childLiveTrees, capacity);
+        visibleIndexes = Arrays.copyOf(visibleIndexes, capacity);
+        stamps = Arrays.copyOf(stamps, capacity);
+    }
+
+    /**
+     * adds delta to the rows under node, then to each ancestor for as long as the one below it is expanded
+     */
+    private void rowsChanged(int node, int delta) {
+        epoch++;
+        for (int n = node; n != NONE; n = parent[n]) {
+            expandedRows[n] += delta;
+            if (!expanded.get(n))
+                break;
+            childRowsChanged(n, delta);
+        }
+    }
+
+    //the rows the node takes under its parent moved by delta
+    private void childRowsChanged(int node, int delta) {
+        int p = parent[node];
+        if (p != NONE)
+            Fenwick.add(childRowTrees[p], slotCounts[p], slots[node], delta);
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= size)
+            throw new IndexOutOfBoundsException("no node " + node);
+    }
+
+    private void fireChanged(int node) {
+        for (IntConsumer listener : listeners)
+            listener.accept(node);
+    }
+
+    @Override
+    public int root() {
+        return 0;
+    }
+
+    @Override
+    public int parent(int node) {
+        return parent[node];
+    }
+
+    @Override
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    @Override
+    public int lastChild(int node) {
+        return lastChild[node];
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    @Override
+    public int previousSibling(int node) {
+        return previousSibling[node];
+    }
+
+    @Override
+    public int indexInParent(int node) {
+        int p = parent[node];
+        if (p == NONE)
+            return -1;
+        return Fenwick.sumBefore(childLiveTrees[p], slots[node]);
+    }
+
+    /**
+     * the slot the index falls in among the live ones, O(log siblings)
+     */
+    @Override
+    public int childAt(int node, int index) {
+        if (index < 0 || childSlots[node] == null)
+            return NONE;
+        int slot = Fenwick.countWithin(childLiveTrees[node], slotCounts[node], index);
+        return slot < slotCounts[node] ? childSlots[node][slot] : NONE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T value(int node) {
+        return (T) values[node];
+    }
+
+    @Override
+    public boolean isExpanded(int node) {
+        return expanded.get(node);
+    }
+
+    @Override
+    public void setExpanded(int node, boolean expand) {
+        checkNode(node);
+        if (expanded.get(node) == expand)
+            return;
+        expanded.set(node, expand);
+        if (parent[node] != NONE) {
+            int delta = expand ? expandedRows[node] : -expandedRows[node];
+            childRowsChanged(node, delta);
+            rowsChanged(parent[node], delta);
+        } else
+            epoch++;
+        fireChanged(node);
+    }
+
+    @Override
+    public int depth(int node) {
+        int depth = 0;
+        for (int p = parent[node]; p != NONE; p = parent[p])
+            depth++;
+        return depth;
+    }
+
+    @Override
+    public int descendantCount(int node) {
+        int count = 0;
+        int top = 0;
+        stack = push(stack, top++, node);
+        while (top > 0) {
+            int n = stack[--top];
+            for (int c = firstChild[n]; c != NONE; c = nextSibling[c]) {
+                count++;
+                stack = push(stack, top++, c);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int visibleDescendantCount(int node) {
+        return expanded.get(node) ? expandedRows[node] : 0;
+    }
+
+    @Override
+    public int visibleIndex(int node) {
+        if (!isVisible(node))
+            return -1;
+        settlePosition(node);
+        return visibleIndexes[node];
+    }
+
+    /**
+     * a node's row is its parent's row, plus one for the parent, plus the rows its earlier siblings take.
+     * the stale ancestors are collected walking up and computed walking down.
+     */
+    private void settlePosition(int node) {
+        int top = 0;
+        for (int n = node; n != NONE && stamps[n] != epoch; n = parent[n])
+            stack = push(stack, top++, n);
+
+        while (top > 0) {
+            int n = stack[--top];
+            int p = parent[n];
+            if (p != NONE)
+                visibleIndexes[n] = visibleIndexes[p] + 1 + Fenwick.sumBefore(childRowTrees[p], slots[n]);
+            else
+                visibleIndexes[n] = 0;
+            stamps[n] = epoch;
+        }
+    }
+
+    private static int[] push(int[] stack, int at, int node) {
+        if (at == stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[at] = node;
+        return stack;
+    }
+
+    /**
+     * descends from the root, picking each level's child from the rows its siblings take. costs O(depth * log siblings).
+     */
+    @Override
+    public int nodeAtVisibleIndex(int visibleIndex) {
+        int node = root();
+        int remaining = Math.clamp(visibleIndex, 0, visibleDescendantCount(node));
+        while (remaining > 0) {
+            //remaining counts rows below node, so node is expanded with at least that many visible descendants
+            int[] rows = childRowTrees[node];
+            int slot = Fenwick.countWithin(rows, slotCounts[node], remaining - 1);
+            remaining -= 1 + Fenwick.sumBefore(rows, slot);
+            node = childSlots[node][slot];
+        }
+        return node;
+    }
+
+    @Override
+    public void addListener(IntConsumer changedNode) {
+        listeners.add(changedNode);
+    }
+
+    @Override
+    public void removeListener(IntConsumer changedNode) {
+        listeners.remove(changedNode);
+    }
+
+    @Override
+    public boolean addStructureListener(StructureListener listener) {
+        structureListeners.add(listener);
+        return true;
+    }
+
+    @Override
+    public void removeStructureListener(StructureListener listener) {
+        structureListeners.remove(listener);
+    }
+}
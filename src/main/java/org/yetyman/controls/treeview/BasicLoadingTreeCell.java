@@ -0,0 +1,36 @@
+package org.yetyman.controls.treeview;
+
+import javafx.geometry.Insets;
+import javafx.geometry.VPos;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextBoundsType;
+
+/**
+ * the default row shown under an item while its {@link ChildrenProvider} is fetching
+ */
+public class BasicLoadingTreeCell<T> extends TreeCell<T> {
+    private final Text l;
+
+    public BasicLoadingTreeCell() {
+        getStyleClass().add("-j-tree-loading-cell");
+        setManaged(false);
+        l = new Text("loading…");
+        l.getStyleClass().add("text");
+        l.setTextOrigin(VPos.CENTER);
+        l.setBoundsType(TextBoundsType.LOGICAL_VERTICAL_CENTER);
+        setPadding(new Insets(1));
+
+        setContent(l);
+        setMinSize(USE_COMPUTED_SIZE, USE_PREF_SIZE);
+        layoutBoundsProperty().addListener((s,a,b)->{
+            l.setX(getPadding().getLeft());
+            l.setY(getHeight()/2);
+        });
+        setPrefSize(USE_COMPUTED_SIZE, USE_COMPUTED_SIZE);
+        setMaxSize(USE_COMPUTED_SIZE, USE_PREF_SIZE);
+    }
+
+    @Override
+    public void updateVisuals(T value, TreeItem<T> wrapper) {
+    }
+}
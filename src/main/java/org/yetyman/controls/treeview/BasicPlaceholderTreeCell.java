@@ -0,0 +1,34 @@
+package org.yetyman.controls.treeview;
+
+import javafx.geometry.Insets;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+/**
+ * the default row shown in place of a cell a layout pass had no binding budget left for, a faint bar
+ */
+public class BasicPlaceholderTreeCell<T> extends TreeCell<T> {
+    private final Region bar;
+
+    public BasicPlaceholderTreeCell() {
+        getStyleClass().add("-j-tree-placeholder-cell");
+        setManaged(false);
+        bar = new Region();
+        bar.getStyleClass().add("bar");
+        bar.setBackground(new Background(new BackgroundFill(Color.gray(0, .12), new CornerRadii(3), Insets.EMPTY)));
+        bar.setPrefSize(80, 8);
+        setPadding(new Insets(1));
+
+        setContent(bar);
+        layoutBoundsProperty().addListener((s,a,b)->{
+            bar.relocate(getPadding().getLeft(), (getHeight() - bar.prefHeight(-1)) / 2);
+        });
+    }
+
+    @Override
+    public void updateVisuals(T value, TreeItem<T> wrapper) {
+    }
+}
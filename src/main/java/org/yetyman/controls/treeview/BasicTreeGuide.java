@@ -13,6 +13,10 @@ public class BasicTreeGuide<T> extends TreeGuideNode<T> {
     final Region tr = new Region();
     final Region br = new Region();
     public int cornerCurve = 3;
+    //what the borders were last built for. a guide is usually handed the same lines again on the next layout
+    private List<OrthoDirection> shownDirections = null;
+    private boolean shownUnderCaret;
+    private int shownCornerCurve;
     public BasicTreeGuide() {
 //        setManaged(false);
         tl.setManaged(false);
@@ -32,7 +36,12 @@ public class BasicTreeGuide<T> extends TreeGuideNode<T> {
 
     @Override
     public void showDirections(T value, List<OrthoDirection> directions, TreeItem<T> parentItem, TreeItem<T> childAtIndex) {
-        boolean isUnderCaret = childAtIndex != null && childAtIndex.childrenProperty.getSize() > 0;
+        boolean isUnderCaret = childAtIndex != null && childAtIndex.mayHaveChildren();
+        if ((directions == shownDirections || directions.equals(shownDirections)) && isUnderCaret == shownUnderCaret && cornerCurve == shownCornerCurve)
+            return;
+        shownDirections = directions;
+        shownUnderCaret = isUnderCaret;
+        shownCornerCurve = cornerCurve;
 
         Border tlBorder = new Border(new BorderStroke(Color.BLACK, BorderStrokeStyle.SOLID, CornerRadii.EMPTY, new BorderWidths(
             0,
@@ -0,0 +1,15 @@
+package org.yetyman.controls.treeview;
+
+/**
+ * derives something a cell shows from its item's value off the fx thread, like a formatted size or a decoded thumbnail.
+ * declared from {@link TreeCell#updateVisuals} through {@link TreeCell#computeContent}.
+ */
+@FunctionalInterface
+public interface CellContentComputation<T, R> {
+    /**
+     * runs on a virtual thread, so it may block. the thread is interrupted if the cell is given another item before this
+     * returns, and whatever it returns is then dropped. if this throws, nothing is applied, and
+     * the failure goes to the cell's failure handler if it gave one.
+     */
+    R compute(T value) throws Exception;
+}
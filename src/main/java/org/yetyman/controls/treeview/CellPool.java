@@ -0,0 +1,43 @@
+package org.yetyman.controls.treeview;
+
+import java.util.Stack;
+
+/**
+ * the cells a {@link TreeView} has made for one cell type, and which of them are free to bind to another item.
+ * a cell only ever goes back to the pool it came from, so it is rebound to items of its own type and never restructured.
+ */
+class CellPool<T> {
+    final Object cellType;
+    private final Stack<TreeCell<T>> free = new Stack<>();
+    private int created = 0;
+    private long acquired = 0;
+    private long reused = 0;
+
+    CellPool(Object cellType) {
+        this.cellType = cellType;
+    }
+
+    /**
+     * a free cell, or null when the caller has to make one and hand it to {@link #created(TreeCell)}
+     */
+    TreeCell<T> acquire() {
+        acquired++;
+        if (free.isEmpty())
+            return null;
+        reused++;
+        return free.pop();
+    }
+
+    void created(TreeCell<T> cell) {
+        created++;
+        cell.setPool(this);
+    }
+
+    void release(TreeCell<T> cell) {
+        free.push(cell);
+    }
+
+    CellPoolStatistics statistics() {
+        return new CellPoolStatistics(cellType, created, free.size(), acquired, reused);
+    }
+}
@@ -0,0 +1,14 @@
+package org.yetyman.controls.treeview;
+
+/**
+ * counts for one cell type's pool in a {@link TreeView}, see {@link TreeView#getCellPoolStatistics()}.
+ * acquired counts every time an item needed a cell of the type, and reused the times one was free to hand it.
+ */
+public record CellPoolStatistics(Object cellType, int created, int free, long acquired, long reused) {
+    /**
+     * cells of the type currently bound to an item
+     */
+    public int bound() {
+        return created - free;
+    }
+}
@@ -0,0 +1,23 @@
+package org.yetyman.controls.treeview;
+
+import java.util.List;
+
+/**
+ * produces the children of a tree item the first time it is expanded, instead of building every children list up front.
+ * set one on a {@link TreeItem} or on the {@link TreeView} for its root, children loaded through it get the same provider.
+ */
+@FunctionalInterface
+public interface ChildrenProvider<T> {
+    /**
+     * runs on a virtual thread, so it may block. the item is collapsed if this throws, and the next expand tries again.
+     * the thread is interrupted if the item is collapsed before this returns, and whatever it returns is then dropped.
+     */
+    List<? extends T> fetchChildren(T parentValue) throws Exception;
+
+    /**
+     * decides whether an item that hasn't loaded yet shows a caret. runs on the fx thread, so it should be cheap.
+     */
+    default boolean mayHaveChildren(T value) {
+        return true;
+    }
+}
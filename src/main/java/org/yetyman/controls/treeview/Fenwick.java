@@ -0,0 +1,56 @@
+package org.yetyman.controls.treeview;
+
+import java.util.Arrays;
+
+/**
+ * fenwick trees over int arrays, for the models' per parent child counts. entries are 0 based in the calls and the
+ * trees are 1 based, so tree[0] is unused. count is how many entries the tree holds, which can be less than it has room for.
+ */
+final class Fenwick {
+    private Fenwick() {
+    }
+
+    /**
+     * adds value as entry count, growing the tree if it's full, and returns the tree
+     */
+    static int[] append(int[] tree, int count, int value) {
+        int i = count + 1;
+        if (tree == null)
+            tree = new int[4];
+        else if (i >= tree.length)
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        //the new node covers the entries after i - lowbit(i), which are all there already
+        tree[i] = value + sumBefore(tree, i - 1) - sumBefore(tree, i - (i & -i));
+        return tree;
+    }
+
+    static void add(int[] tree, int count, int at, int delta) {
+        for (int i = at + 1; i <= count; i += i & -i)
+            tree[i] += delta;
+    }
+
+    /**
+     * the total of the entries before at
+     */
+    static int sumBefore(int[] tree, int at) {
+        int sum = 0;
+        for (int i = at; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * how many leading entries add up to no more than sum, which is the entry sum falls in when entries are row counts
+     */
+    static int countWithin(int[] tree, int count, int sum) {
+        int passed = 0;
+        for (int step = Integer.highestOneBit(Math.max(count, 1)); step > 0; step >>= 1) {
+            int next = passed + step;
+            if (next <= count && tree[next] <= sum) {
+                passed = next;
+                sum -= tree[next];
+            }
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,140 @@
+package org.yetyman.controls.treeview;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+
+import java.util.List;
+
+/**
+ * draws the guides, and carets when asked, for the rows of one layout pass. the lines match {@link BasicTreeGuide}'s
+ * and the carets {@link BasicTreeCaret}'s, without a node for each.
+ * the canvas only spans the laid rows, so it stays small however long the tree is.
+ */
+class GuideCanvas<T> extends Canvas {
+    //the corner of a last child's line, as BasicTreeGuide curves it
+    private static final double CORNER_CURVE = 3;
+    //a caret's half width against half its area, as BasicTreeCaret's shape is
+    private static final double CARET_PROPORTION = .6;
+    private final double[] caretXs = new double[3];
+    private final double[] caretYs = new double[3];
+
+    void draw(LaidRows<T> rows, double rowOffset, double leftPad, double guideWidth, double caretWidth,
+              boolean carets, double width, Paint stroke) {
+        double top = Double.POSITIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < rows.size(); r++) {
+            top = Math.min(top, rows.y(r));
+            bottom = Math.max(bottom, rows.y(r) + rows.height(r));
+            //carets also fill the cell's margins
+            if (rows.caretHeight(r) > 0) {
+                top = Math.min(top, rows.caretY(r));
+                bottom = Math.max(bottom, rows.caretY(r) + rows.caretHeight(r));
+            }
+        }
+        if (rows.isEmpty())
+            top = bottom = 0;
+        top = Math.floor(top);
+        bottom = Math.ceil(bottom);
+
+        relocate(0, top + rowOffset);
+        setWidth(Math.max(width, 0));
+        setHeight(bottom - top);
+
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.setStroke(stroke);
+        gc.setFill(stroke);
+        gc.setLineWidth(1);
+
+        gc.beginPath();
+        for (int r = 0; r < rows.size(); r++)
+            pathGuides(gc, rows.item(r), leftPad, rows.y(r) - top, rows.height(r), guideWidth);
+        gc.stroke();
+
+        if (carets) {
+            for (int r = 0; r < rows.size(); r++) {
+                TreeItem<T> item = rows.item(r);
+                if (rows.caretHeight(r) > 0)
+                    fillCaret(gc, rows.x(r) - caretWidth, rows.caretY(r) - top, caretWidth, rows.caretHeight(r), item.showChildrenProperty.get());
+            }
+        }
+    }
+
+    /**
+     * one guide for each ancestor column of the row, walking up from the row's parent
+     */
+    private void pathGuides(GraphicsContext gc, TreeItem<T> row, double leftPad, double y, double height, double guideWidth) {
+        TreeItem<T> child = row;
+        TreeItem<T> column = row.parentProperty.get();
+        for (int d = row.depthProperty.get() - 1; d >= 0 && column != null; d--) {
+            List<OrthoDirection> directions;
+            if (child == row)
+                directions = child.isLastChild() ? TreeView.lastChildGuideLines : TreeView.normalGuideLines;
+            else if (!child.isLastChild())
+                directions = TreeView.straightGuideLines;
+            else
+                directions = null;//the column's line ended at its last child, above this row
+
+            if (directions != null) {
+                //rows with a caret keep the square corner, the caret sits where the curve would
+                boolean curved = child == row && directions == TreeView.lastChildGuideLines && !row.mayHaveChildren();
+                pathGuide(gc, directions, leftPad + guideWidth * d, y, guideWidth, height, curved);
+            }
+            child = column;
+            column = column.parentProperty.get();
+        }
+    }
+
+    private void pathGuide(GraphicsContext gc, List<OrthoDirection> directions, double x, double y, double width, double height, boolean curved) {
+        double cx = Math.floor(x + width / 2) + .5;
+        double cy = Math.floor(y + height / 2) + .5;
+        boolean right = directions.contains(OrthoDirection.RIGHT);
+
+        if (directions.contains(OrthoDirection.UP)) {
+            gc.moveTo(cx, y);
+            if (right && curved) {
+                gc.lineTo(cx, cy - CORNER_CURVE);
+                gc.quadraticCurveTo(cx, cy, cx + CORNER_CURVE, cy);
+                gc.lineTo(x + width, cy);
+                right = false;
+            } else
+                gc.lineTo(cx, cy);
+        }
+        if (right) {
+            gc.moveTo(cx, cy);
+            gc.lineTo(x + width, cy);
+        }
+        if (directions.contains(OrthoDirection.DOWN)) {
+            gc.moveTo(cx, cy);
+            gc.lineTo(cx, y + height);
+        }
+    }
+
+    private void fillCaret(GraphicsContext gc, double x, double y, double width, double height, boolean expanded) {
+        double cx = x + width / 2 + .5;
+        double cy = y + height / 2;
+        double s = Math.min(width, height) / 2 * CARET_PROPORTION;
+        //pointing down when open, right when closed
+        caretXs[0] = expanded ? cx - s : cx;
+        caretYs[0] = expanded ? cy : cy - s;
+        caretXs[1] = expanded ? cx : cx + s;
+        caretYs[1] = expanded ? cy + s : cy;
+        caretXs[2] = expanded ? cx + s : cx;
+        caretYs[2] = expanded ? cy : cy + s;
+        gc.fillPolygon(caretXs, caretYs, 3);
+    }
+
+    /**
+     * the row whose drawn caret is at x, y in the canvas' parent, or -1
+     */
+    int caretRowAt(LaidRows<T> rows, double rowOffset, double caretWidth, double x, double y) {
+        for (int r = 0; r < rows.size(); r++) {
+            double caretX = rows.x(r) - caretWidth;
+            double caretY = rows.caretY(r) + rowOffset;
+            if (x >= caretX && x < caretX + caretWidth && y >= caretY && y < caretY + rows.caretHeight(r))
+                return r;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,10 @@
+package org.yetyman.controls.treeview;
+
+public enum GuideRendering {
+    //a node from the guide factory for every guide and from the caret factory for every caret. styleable and replaceable
+    NODES,
+    //guides drawn on one canvas, carets still nodes. guide nodes and their css aren't used
+    CANVAS,
+    //guides and carets both drawn on the canvas. clicking a drawn caret opens or closes its item like a caret node
+    CANVAS_WITH_CARETS;
+}
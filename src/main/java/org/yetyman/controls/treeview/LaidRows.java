@@ -0,0 +1,106 @@
+package org.yetyman.controls.treeview;
+
+import java.util.Arrays;
+
+/**
+ * the rows of one layout pass, top to bottom, kept as parallel arrays the {@link TreeView} reuses from pass to pass.
+ * rows are added outwards from the center item, so the arrays fill from their middle and can grow at either end.
+ */
+class LaidRows<T> {
+    private TreeItem<T>[] items;
+    private TreeCell<T>[] cells;
+    private TreeCaretNode<T>[] carets;
+    private double[] x;
+    private double[] y;
+    private double[] width;
+    private double[] height;
+    private double[] caretY;
+    private double[] caretHeight;
+    private int head;
+    private int size = 0;
+
+    LaidRows() {
+        allocate(64);
+        head = 32;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        items = (TreeItem<T>[]) new TreeItem<?>[capacity];
+        cells = (TreeCell<T>[]) new TreeCell<?>[capacity];
+        carets = (TreeCaretNode<T>[]) new TreeCaretNode<?>[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        width = new double[capacity];
+        height = new double[capacity];
+        caretY = new double[capacity];
+        caretHeight = new double[capacity];
+    }
+
+    /**
+     * empties the rows without letting go of the arrays
+     */
+    void clear() {
+        Arrays.fill(items, head, head + size, null);
+        Arrays.fill(cells, head, head + size, null);
+        Arrays.fill(carets, head, head + size, null);
+        head = items.length / 2;
+        size = 0;
+    }
+
+    /**
+     * adds a row above the others, or below them. caret is null for rows without one.
+     */
+    void add(boolean first, TreeItem<T> item, TreeCell<T> cell, double rowX, double rowY, double rowWidth, double rowHeight,
+             TreeCaretNode<T> caret, double rowCaretY, double rowCaretHeight) {
+        if (first ? head == 0 : head + size == items.length)
+            grow();
+        int at = first ? --head : head + size;
+        size++;
+        items[at] = item;
+        cells[at] = cell;
+        carets[at] = caret;
+        x[at] = rowX;
+        y[at] = rowY;
+        width[at] = rowWidth;
+        height[at] = rowHeight;
+        caretY[at] = rowCaretY;
+        caretHeight[at] = rowCaretHeight;
+    }
+
+    /**
+     * doubles the arrays and centers the rows in them again
+     */
+    private void grow() {
+        TreeItem<T>[] oldItems = items;
+        TreeCell<T>[] oldCells = cells;
+        TreeCaretNode<T>[] oldCarets = carets;
+        double[] oldX = x, oldY = y, oldWidth = width, oldHeight = height, oldCaretY = caretY, oldCaretHeight = caretHeight;
+        int oldHead = head;
+
+        allocate(items.length * 2);
+        head = (items.length - size) / 2;
+        System.arraycopy(oldItems, oldHead, items, head, size);
+        System.arraycopy(oldCells, oldHead, cells, head, size);
+        System.arraycopy(oldCarets, oldHead, carets, head, size);
+        System.arraycopy(oldX, oldHead, x, head, size);
+        System.arraycopy(oldY, oldHead, y, head, size);
+        System.arraycopy(oldWidth, oldHead, width, head, size);
+        System.arraycopy(oldHeight, oldHead, height, head, size);
+        System.arraycopy(oldCaretY, oldHead, caretY, head, size);
+        System.arraycopy(oldCaretHeight, oldHead, caretHeight, head, size);
+    }
+
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+
+    TreeItem<T> item(int row) { return items[head + row]; }
+    TreeCell<T> cell(int row) { return cells[head + row]; }
+    TreeCaretNode<T> caret(int row) { return carets[head + row]; }
+    double x(int row) { return x[head + row]; }
+    double y(int row) { return y[head + row]; }
+    double width(int row) { return width[head + row]; }
+    double height(int row) { return height[head + row]; }
+    double caretY(int row) { return caretY[head + row]; }
+    double caretHeight(int row) { return caretHeight[head + row]; }
+}
@@ -0,0 +1,77 @@
+package org.yetyman.controls.treeview;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * the tree items a {@link TreeView} has materialized from its {@link TreeModel}, one per node at most.
+ * items are made for the rows being laid out and the ancestors above them, and dropped once nothing is bound to them.
+ * a dropped item still reads its node from the model, but the next item made for that node is a different one.
+ */
+class ModelItems<T> {
+    final TreeModel<T> model;
+    private final Map<Integer, TreeItem<T>> items = new HashMap<>();
+    private final Runnable onChange;
+    private final IntConsumer listener = this::modelChanged;
+
+    ModelItems(TreeModel<T> model, Runnable onChange) {
+        this.model = model;
+        this.onChange = onChange;
+        model.addListener(listener);
+    }
+
+    TreeItem<T> materialize(int node) {
+        if (node == -1)
+            return null;
+        TreeItem<T> item = items.get(node);
+        if (item != null)
+            return item;
+
+        //make the missing ancestors first, top down, so every item is made under its parent's item
+        List<Integer> missing = new ArrayList<>();
+        for (int n = node; n != -1 && !items.containsKey(n); n = model.parent(n))
+            missing.add(n);
+        for (int i = missing.size() - 1; i >= 0; i--) {
+            int n = missing.get(i);
+            item = new TreeItem<>(model.value(n));
+            item.modelItems = this;
+            item.modelNode = n;
+            item.showChildrenProperty.set(model.isExpanded(n));
+            int p = model.parent(n);
+            item.parentProperty.set(p == -1 ? null : items.get(p));
+            items.put(n, item);
+        }
+        return item;
+    }
+
+    /**
+     * lets go of the items no cell, caret or guide is bound to, except those kept
+     */
+    void evictUnbound(TreeItem<T> keep, TreeItem<T> alsoKeep) {
+        items.values().removeIf(item -> item != keep && item != alsoKeep
+                && item.currentCellProperty.get() == null
+                && item.currentCaretProperty.get() == null
+                && item.currentChildGuidesProperty.isEmpty());
+    }
+
+    void dispose() {
+        model.removeListener(listener);
+        items.clear();
+    }
+
+    private void modelChanged(int node) {
+        if (node == -1)
+            items.forEach((n, item) -> refresh(n, item));
+        else if (items.containsKey(node))
+            refresh(node, items.get(node));
+        onChange.run();
+    }
+
+    private void refresh(int node, TreeItem<T> item) {
+        item.valueProperty.set(model.value(node));
+        item.showChildrenProperty.set(model.isExpanded(node));
+    }
+}
@@ -0,0 +1,8 @@
+package org.yetyman.controls.treeview;
+
+public enum OverscanUnit {
+    //overscan counts rows, whatever their heights
+    ROWS,
+    //overscan counts pixels, from the heights rows were measured at and the estimate for rows not measured yet
+    PIXELS;
+}
@@ -0,0 +1,16 @@
+package org.yetyman.controls.treeview;
+
+/**
+ * which numbered pseudo classes a {@link TreeView} gives its cells, carets and guides. every number is a pseudo class
+ * of its own, kept for good once used, and a node showing a new number has its css redone.
+ */
+public enum PseudoClassPolicy {
+    //no numbered pseudo classes. child-last and a caret's expanded class are still set
+    NONE,
+    //odd and even by visible index and nothing else numbered
+    PARITY,
+    //odd and even, and d-%d and child-%d up to the view's pseudoClassCap. deeper or later nodes share the cap's class
+    CAPPED,
+    //every number, v-%d included, so a tree of a million rows makes a million classes
+    ALL;
+}
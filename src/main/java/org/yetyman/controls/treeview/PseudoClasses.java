@@ -0,0 +1,53 @@
+package org.yetyman.controls.treeview;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ObjectProperty;
+
+import java.util.Objects;
+
+final class PseudoClasses {
+    private PseudoClasses() {
+    }
+
+    /**
+     * sets a numbered pseudo class property only when the number changes, and says whether it did. null clears it.
+     * numbers past 127 box to a new Integer each time, which the property would take as a change and restyle the node for.
+     */
+    static boolean setNumber(ObjectProperty<Integer> property, Integer number) {
+        if (Objects.equals(property.get(), number))
+            return false;
+        property.set(number);
+        return true;
+    }
+
+    /**
+     * the odd, even and v-%d classes for a visible index, as far as the policy shows them. -1, for a hidden item,
+     * clears all three
+     */
+    static boolean setIndex(ObjectProperty<Integer> indexClass, BooleanProperty oddClass, BooleanProperty evenClass,
+                            int visibleIndex, PseudoClassPolicy policy) {
+        boolean parity = policy != PseudoClassPolicy.NONE && visibleIndex >= 0;
+        boolean changed = setNumber(indexClass, policy == PseudoClassPolicy.ALL && visibleIndex >= 0 ? visibleIndex : null);
+        changed |= set(oddClass, parity && visibleIndex % 2 == 1);
+        changed |= set(evenClass, parity && visibleIndex % 2 == 0);
+        return changed;
+    }
+
+    /**
+     * a d-%d or child-%d class, capped or left off as the policy says
+     */
+    static boolean setCapped(ObjectProperty<Integer> property, int number, PseudoClassPolicy policy, int cap) {
+        return setNumber(property, switch (policy) {
+            case NONE, PARITY -> null;
+            case CAPPED -> Math.min(number, cap);
+            case ALL -> number;
+        });
+    }
+
+    static boolean set(BooleanProperty property, boolean value) {
+        if (property.get() == value)
+            return false;
+        property.set(value);
+        return true;
+    }
+}
@@ -8,11 +8,19 @@ import org.yetyman.controls.PseudoClassHelper;
 public abstract class TreeCaretNode<T> extends Region {
     private CellLayoutConstraints cellLayoutConstraints;
     private TreeItem<T> treeItem;
+    private int laidOutPass = -1;
     private int depth;
-    private int visibleIndex;
+    //-1 until it is given one, or for a hidden item
+    private int visibleIndex = -1;
+    //depth, index and disclosure all show in the caret's style. set until the view first styles it
+    private boolean stylesChanged = true;
 
     private final transient ObjectProperty<Integer> indexClass = PseudoClassHelper.createPseudoClassObjectProperty(this, "v-%d", null);
     private final transient ObjectProperty<Integer> depthClass = PseudoClassHelper.createPseudoClassObjectProperty(this, "d-%d", null);
+    private final transient BooleanProperty oddClass = PseudoClassHelper.createPseudoClassProperty(this, "odd", false);
+    private final transient BooleanProperty evenClass = PseudoClassHelper.createPseudoClassProperty(this, "even", false);
+    private PseudoClassPolicy pseudoClassPolicy = PseudoClassPolicy.NONE;
+    private int pseudoClassCap;
 
     //TODO: plan to expand this to be bound to the same value in the tree item at all times it is bound to one
     private final ReadOnlyBooleanWrapper disclosureInternal = new ReadOnlyBooleanWrapper(false);
@@ -26,6 +34,7 @@ public abstract class TreeCaretNode<T> extends Region {
                 treeItem.showChildrenProperty.set(!treeItem.showChildrenProperty.get());
         });
         disclosure.addListener((s,a,b)->{
+            stylesChanged = true;
             if(b)
                 getStyleClass().add("expanded");
             else
@@ -44,6 +53,22 @@ public abstract class TreeCaretNode<T> extends Region {
     };
     CellLayoutConstraints getCachedConstraints() { return cellLayoutConstraints; };
 
+    void setLaidOutPass(int pass) { this.laidOutPass = pass; }
+    int getLaidOutPass() { return laidOutPass; }
+
+    boolean takeStylesChanged() {
+        boolean changed = stylesChanged;
+        stylesChanged = false;
+        return changed;
+    }
+
+    void setPseudoClassPolicy(PseudoClassPolicy policy, int cap) {
+        pseudoClassPolicy = policy;
+        pseudoClassCap = cap;
+        setDepth(depth);
+        setVisibleIndex(visibleIndex);
+    }
+
     void setTreeItem(TreeItem<T> treeItem) { this.treeItem = treeItem; };
     TreeItem<T> getTreeItem() { return treeItem; };
 
@@ -62,7 +87,7 @@ public abstract class TreeCaretNode<T> extends Region {
 
     void setDepth(int depth) {
         this.depth = depth;
-        depthClass.set(depth);
+        stylesChanged |= PseudoClasses.setCapped(depthClass, depth, pseudoClassPolicy, pseudoClassCap);
     }
 
     public int getDepth() {
@@ -71,7 +96,7 @@ public abstract class TreeCaretNode<T> extends Region {
 
     public void setVisibleIndex(int visibleIndex) {
         this.visibleIndex = visibleIndex;
-        indexClass.set(visibleIndex);
+        stylesChanged |= PseudoClasses.setIndex(indexClass, oddClass, evenClass, visibleIndex, pseudoClassPolicy);
     }
 
     public int getVisibleIndex() {
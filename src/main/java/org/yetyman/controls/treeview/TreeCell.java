@@ -1,15 +1,32 @@
 package org.yetyman.controls.treeview;
 
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.layout.Region;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.yetyman.controls.PseudoClassHelper;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
 public abstract class TreeCell<T> extends Region {
+    private static final Logger log = LoggerFactory.getLogger(TreeCell.class);
     private CellLayoutConstraints cellLayoutConstraints;
     private TreeItem<T> treeItem;
+    //the layout pass that last laid this out, so the view can tell which nodes a pass left unused
+    private int laidOutPass = -1;
+    private CellPool<T> pool;
+    //whether a pseudo class changed since the view last styled this. a new node hasn't been styled at all
+    private boolean stylesChanged = true;
+    //computations declared for the item bound now. one that finds it isn't listed anymore drops its result
+    private final List<Thread> contentThreads = new ArrayList<>();
+    //whether computed content was applied since the view last measured this
+    private boolean contentApplied = false;
 
     public TreeCell() {
         getStyleClass().add("-j-tree-cell");
@@ -19,6 +36,11 @@ public abstract class TreeCell<T> extends Region {
     private final transient ObjectProperty<Integer> depthClass = PseudoClassHelper.createPseudoClassObjectProperty(this, "d-%d", null);
     private final transient ObjectProperty<Integer> childIndexClass = PseudoClassHelper.createPseudoClassObjectProperty(this, "child-%d", null);
     private final transient BooleanProperty childLastClass = PseudoClassHelper.createPseudoClassProperty(this, "child-last", false);
+    private final transient BooleanProperty oddClass = PseudoClassHelper.createPseudoClassProperty(this, "odd", false);
+    private final transient BooleanProperty evenClass = PseudoClassHelper.createPseudoClassProperty(this, "even", false);
+    //set by the view before the cell is bound
+    private PseudoClassPolicy pseudoClassPolicy = PseudoClassPolicy.NONE;
+    private int pseudoClassCap;
 
     public void setContent(Node content) {
         if(!getChildren().isEmpty()) {
@@ -44,12 +66,114 @@ public abstract class TreeCell<T> extends Region {
 
     public abstract void updateVisuals(T value, TreeItem<T> wrapper);
 
+    /**
+     * computes something for the bound item off the fx thread, then hands it to apply on the fx thread if this cell
+     * still shows the same item. meant to be called from updateVisuals, which should show something cheap meanwhile.
+     * the cell is measured again once the result is applied. a failure is logged, and the cheap content stays
+     */
+    protected final <R> void computeContent(CellContentComputation<T, R> computation, Consumer<? super R> apply) {
+        computeContent(computation, apply, null);
+    }
+
+    /**
+     * as above, handing what the computation threw to failed on the fx thread instead, if this cell still shows the
+     * same item, so it can replace what it showed meanwhile
+     */
+    protected final <R> void computeContent(CellContentComputation<T, R> computation, Consumer<? super R> apply, Consumer<? super Throwable> failed) {
+        TreeItem<T> item = treeItem;
+        if (item == null)
+            return;
+
+        T value = item.valueProperty.get();
+        //results come back through runLater, so they can't be applied before the thread is listed below
+        contentThreads.add(Thread.ofVirtual().name("tree-cell-content").start(() -> {
+            Thread compute = Thread.currentThread();
+            try {
+                R result = computation.compute(value);
+                Platform.runLater(() -> contentComputed(compute, item, result, apply));
+            } catch (Throwable t) {
+                //errors too, so the cell hears of them like any failure. they still reach the thread's handler after
+                Platform.runLater(() -> contentComputeFailed(compute, item, t, failed));
+                if (t instanceof Error error)
+                    throw error;
+            } finally {
+                //unlists the thread however the computation ended, after whichever was posted above
+                Platform.runLater(() -> contentThreads.remove(compute));
+            }
+        }));
+    }
+
+    private <R> void contentComputed(Thread compute, TreeItem<T> item, R result, Consumer<? super R> apply) {
+        if (!contentThreads.remove(compute) || treeItem != item)
+            return;
+        apply.accept(result);
+        measureAgain();
+    }
+
+    private void contentComputeFailed(Thread compute, TreeItem<T> item, Throwable t, Consumer<? super Throwable> failed) {
+        if (!contentThreads.remove(compute) || treeItem != item)
+            return;
+        if (failed == null) {
+            log.warn("failed to compute the content of {}", item, t);
+            return;
+        }
+        failed.accept(t);
+        measureAgain();
+    }
+
+    private void measureAgain() {
+        contentApplied = true;
+        stylesChanged = true;
+        if (getParent() != null)
+            getParent().requestLayout();
+    }
+
+    /**
+     * drops the computations declared for the bound item, before it is bound again or the cell is given another
+     */
+    void cancelContent() {
+        for (Thread compute : contentThreads)
+            compute.interrupt();
+        contentThreads.clear();
+    }
+
+    /**
+     * whether computed content needs measuring, clearing it for the caller to measure it
+     */
+    boolean takeContentApplied() {
+        boolean applied = contentApplied;
+        contentApplied = false;
+        return applied;
+    }
+
     void setCachedConstraints(CellLayoutConstraints cellLayoutConstraints) {
         this.cellLayoutConstraints = cellLayoutConstraints;
     };
     CellLayoutConstraints getCachedConstraints() { return cellLayoutConstraints; };
 
+    void setLaidOutPass(int pass) { this.laidOutPass = pass; }
+    int getLaidOutPass() { return laidOutPass; }
+
+    void setPool(CellPool<T> pool) { this.pool = pool; }
+    CellPool<T> getPool() { return pool; }
+
+    /**
+     * for content updateVisuals may have just replaced, which the pseudo classes don't show
+     */
+    void contentChanged() { stylesChanged = true; }
+
+    /**
+     * whether the node needs styling, clearing it for the caller to style it
+     */
+    boolean takeStylesChanged() {
+        boolean changed = stylesChanged;
+        stylesChanged = false;
+        return changed;
+    }
+
     void setTreeItem(TreeItem<T> treeItem) {
+        if (this.treeItem != treeItem)
+            cancelContent();
         this.treeItem = treeItem;
 
         updateIndexClass();
@@ -57,24 +181,34 @@ public abstract class TreeCell<T> extends Region {
         updateChildIndexClass();
     }
 
+    void setPseudoClassPolicy(PseudoClassPolicy policy, int cap) {
+        pseudoClassPolicy = policy;
+        pseudoClassCap = cap;
+
+        updateIndexClass();
+        updateDepthClass();
+        updateChildIndexClass();
+    }
+
     void updateChildIndexClass() {
         if(treeItem != null) {
             int index = treeItem.indexInParent();
-            childIndexClass.set(index);
+            stylesChanged |= PseudoClasses.setCapped(childIndexClass, index, pseudoClassPolicy, pseudoClassCap);
 
-            childLastClass.set((index == getTreeItem().childrenProperty.size()-1));
+            stylesChanged |= PseudoClasses.set(childLastClass, !treeItem.isRoot() && treeItem.isLastChild());
         }
     }
 
     void updateDepthClass() {
         if(treeItem != null) {
-            depthClass.set(treeItem.depthProperty.get());
+            stylesChanged |= PseudoClasses.setCapped(depthClass, treeItem.depthProperty.get(), pseudoClassPolicy, pseudoClassCap);
         }
     }
 
     void updateIndexClass() {
         if(treeItem != null) {
-            indexClass.set(treeItem.visibleIndexProperty.get());
+            Integer visibleIndex = treeItem.visibleIndexProperty.get();
+            stylesChanged |= PseudoClasses.setIndex(indexClass, oddClass, evenClass, visibleIndex == null ? -1 : visibleIndex, pseudoClassPolicy);
         }
     }
 
@@ -11,24 +11,35 @@ import java.util.List;
 public abstract class TreeGuideNode<T> extends Region {
     private CellLayoutConstraints cellLayoutConstraints;
     private TreeItem<T> colTreeItem;
+    private int laidOutPass = -1;
     private int indexUnderItem;
     private int depth;
-    private int visibleIndex;
+    //-1 until it is given one, or for a hidden item
+    private int visibleIndex = -1;
     private final ReadOnlyListWrapper<OrthoDirection> currentDirectionsInternal = new ReadOnlyListWrapper<>(FXCollections.observableArrayList());
     public final ReadOnlyListProperty<OrthoDirection> currentDirections = currentDirectionsInternal.getReadOnlyProperty();
     private TreeItem<T> rowTreeItem;
+    //the list last shown, so the same list isn't compared again element by element
+    private List<OrthoDirection> lastDirections = null;
+    //set by pseudo class changes and by being new, cleared once the view styles the guide
+    private boolean stylesChanged = true;
 
     private final transient ObjectProperty<Integer> indexClass = PseudoClassHelper.createPseudoClassObjectProperty(this, "v-%d", null);
     private final transient ObjectProperty<Integer> depthClass = PseudoClassHelper.createPseudoClassObjectProperty(this, "d-%d", null);
     private final transient ObjectProperty<Integer> childIndexClass = PseudoClassHelper.createPseudoClassObjectProperty(this, "child-%d", null);
     private final transient BooleanProperty childLastClass = PseudoClassHelper.createPseudoClassProperty(this, "child-last", false);
+    private final transient BooleanProperty oddClass = PseudoClassHelper.createPseudoClassProperty(this, "odd", false);
+    private final transient BooleanProperty evenClass = PseudoClassHelper.createPseudoClassProperty(this, "even", false);
+    private PseudoClassPolicy pseudoClassPolicy = PseudoClassPolicy.NONE;
+    private int pseudoClassCap;
 
     public TreeGuideNode(){
         getStyleClass().add("-j-tree-guide-node");
     }
     void showDirectionsBase(T value, List<OrthoDirection> directions, TreeItem<T> parentItem, TreeItem<T> rowItem) {
-        if(!directions.equals(currentDirectionsInternal))
+        if(directions != lastDirections && !directions.equals(currentDirectionsInternal))
             currentDirectionsInternal.setAll(directions);
+        lastDirections = directions;
         showDirections(value, directions, parentItem, rowItem);
     }
     public abstract void showDirections(T value, List<OrthoDirection> directions, TreeItem<T> parentItem, TreeItem<T> rowItem);
@@ -38,6 +49,23 @@ public abstract class TreeGuideNode<T> extends Region {
     }
     CellLayoutConstraints getCachedConstraints() { return cellLayoutConstraints; }
 
+    void setLaidOutPass(int pass) { this.laidOutPass = pass; }
+    int getLaidOutPass() { return laidOutPass; }
+
+    boolean takeStylesChanged() {
+        boolean changed = stylesChanged;
+        stylesChanged = false;
+        return changed;
+    }
+
+    void setPseudoClassPolicy(PseudoClassPolicy policy, int cap) {
+        pseudoClassPolicy = policy;
+        pseudoClassCap = cap;
+        setIndexUnderParent(indexUnderItem, childLastClass.get());
+        setDepth(depth);
+        setVisibleIndex(visibleIndex);
+    }
+
     void setColumnTreeItem(TreeItem<T> treeItem) { this.colTreeItem = treeItem; }
     TreeItem<T> getColumnTreeItem() { return colTreeItem; }
 
@@ -64,9 +92,9 @@ public abstract class TreeGuideNode<T> extends Region {
     void setIndexUnderParent(int indexUnderItem, boolean isLastGuideUnderItem) {
         this.indexUnderItem = indexUnderItem;
 
-        childIndexClass.set(indexUnderItem);
+        stylesChanged |= PseudoClasses.setCapped(childIndexClass, indexUnderItem, pseudoClassPolicy, pseudoClassCap);
 
-        childLastClass.set(isLastGuideUnderItem);
+        stylesChanged |= PseudoClasses.set(childLastClass, isLastGuideUnderItem);
 
     }
     public int getIndexUnderItem() {
@@ -75,7 +103,7 @@ public abstract class TreeGuideNode<T> extends Region {
 
     void setDepth(int depth) {
         this.depth = depth;
-        depthClass.set(depth);
+        stylesChanged |= PseudoClasses.setCapped(depthClass, depth, pseudoClassPolicy, pseudoClassCap);
     }
 
     public int getDepth() {
@@ -85,7 +113,7 @@ public abstract class TreeGuideNode<T> extends Region {
     public void setVisibleIndex(int visibleIndex) {
         this.visibleIndex = visibleIndex;
 
-        indexClass.set(visibleIndex);
+        stylesChanged |= PseudoClasses.setIndex(indexClass, oddClass, evenClass, visibleIndex, pseudoClassPolicy);
     }
 
     public int getVisibleIndex() {
@@ -1,11 +1,23 @@
 package org.yetyman.controls.treeview;
 
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.Parent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class TreeItem<T> {
+    private static final Logger log = LoggerFactory.getLogger(TreeItem.class);
+
     public final ObjectProperty<T> valueProperty = new SimpleObjectProperty<>(null);
     public final ObjectProperty<TreeItem<T>> parentProperty = new SimpleObjectProperty<>(null) {
         @Override
@@ -15,6 +27,11 @@ public class TreeItem<T> {
             parentChangedHandler(parentProperty, oldValue, newValue);
         }
     };
+    /**
+     * while a {@link ChildrenProvider} is fetching, this also holds the loading placeholder row, an item whose
+     * {@link #isLoadingPlaceholder()} is true. it is swapped for the fetched children when they arrive. skip it when
+     * walking the children, {@link #hasChildren()} already leaves it out.
+     */
     public final SimpleListProperty<TreeItem<T>> childrenProperty = new SimpleListProperty<>(FXCollections.observableArrayList());
     public final BooleanProperty showChildrenProperty = new SimpleBooleanProperty(false) {
         @Override
@@ -24,33 +41,271 @@ public class TreeItem<T> {
             showChildrenChangedHandler(showChildrenProperty, oldValue, newValue);
         }
     };
+    /**
+     * fetches this item's children the first time it is expanded, see {@link ChildrenProvider}
+     */
+    public final ObjectProperty<ChildrenProvider<T>> childrenProviderProperty = new SimpleObjectProperty<>(null) {
+        @Override
+        public void set(ChildrenProvider<T> newValue) {
+            super.set(newValue);
+            loadChildrenIfNeeded();
+        }
+    };
 
-    final ReadOnlyObjectWrapper<TreeCell<T>> settableCellProperty = new ReadOnlyObjectWrapper<>(null);
-    public final ReadOnlyObjectProperty<TreeCell<T>> currentCellProperty = settableCellProperty.getReadOnlyProperty();
+    /*
+     * most items are never bound to a cell, caret or guide, so the properties below are a single object each rather
+     * than a wrapper with a read only twin, and the guide list is a shared empty one until the item's first guide.
+     * nothing is allocated for listeners until one is added.
+     */
+    final SettableProperty<TreeCell<T>> settableCellProperty = new SettableProperty<>("currentCell");
+    public final ReadOnlyObjectProperty<TreeCell<T>> currentCellProperty = settableCellProperty;
 
-    final ReadOnlyObjectWrapper<TreeCaretNode<T>> settableCaretProperty = new ReadOnlyObjectWrapper<>(null);
-    public final ReadOnlyObjectProperty<TreeCaretNode<T>> currentCaretProperty = settableCaretProperty.getReadOnlyProperty();
+    final SettableProperty<TreeCaretNode<T>> settableCaretProperty = new SettableProperty<>("currentCaret");
+    public final ReadOnlyObjectProperty<TreeCaretNode<T>> currentCaretProperty = settableCaretProperty;
 
-    final ReadOnlyListWrapper<TreeGuideNode<T>> settableChildGuidesProperty = new ReadOnlyListWrapper<>(FXCollections.observableArrayList());
+    final ReadOnlyListWrapper<TreeGuideNode<T>> settableChildGuidesProperty = new ReadOnlyListWrapper<>(FXCollections.emptyObservableList());
     public final ReadOnlyListProperty<TreeGuideNode<T>> currentChildGuidesProperty = settableChildGuidesProperty.getReadOnlyProperty();
 
+    final SettableProperty<TreeGuideNode<T>> settableParentGuideProperty = new SettableProperty<>("currentParentGuide");
+    public final ReadOnlyObjectProperty<TreeGuideNode<T>> currentParentGuideProperty = settableParentGuideProperty;
+
+    /**
+     * the child guides list to change, made the first time one is added
+     */
+    ObservableList<TreeGuideNode<T>> settableChildGuides() {
+        if (settableChildGuidesProperty.get() == FXCollections.<TreeGuideNode<T>>emptyObservableList())
+            settableChildGuidesProperty.set(FXCollections.observableArrayList());
+        return settableChildGuidesProperty.get();
+    }
+
+    /**
+     * a read only property the package can set, holding its value itself
+     */
+    final class SettableProperty<V> extends ReadOnlyObjectPropertyBase<V> {
+        private final String name;
+        private V value = null;
+
+        private SettableProperty(String name) {
+            this.name = name;
+        }
+
+        void set(V newValue) {
+            if (value != newValue) {
+                value = newValue;
+                fireValueChangedEvent();
+            }
+        }
+
+        @Override
+        public V get() {
+            return value;
+        }
+
+        @Override
+        public Object getBean() {
+            return TreeItem.this;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * set on items a {@link TreeView} materializes from a {@link TreeModel}. the model holds their structure, so the
+     * derived values below are read from it and their children list stays empty.
+     */
+    ModelItems<T> modelItems = null;
+    int modelNode = -1;
+
+    private static final int CHILDREN_CHANGED = 1;
+    private static final int SHOW_CHILDREN_CHANGED = 2;
+    private static final int PARENT_CHANGED = 4;
+
+    /**
+     * bumped by every structural change. the neighbouring item links below are cached against it rather than marked
+     * dirty one by one, so a change is O(1) for them and only links that get read again are recomputed.
+     * tree items are expected to be changed from one thread, the same as the scene graph they feed.
+     * the epochs are shared by every tree in the jvm, since an item can move between trees and would need its cached
+     * values checked against both. a change to one tree makes the others re-derive these values too, but only for the
+     * items they read again, which for a view is its laid out rows.
+     */
+    private static long structureEpoch = 0;
+    /**
+     * the same idea for depth, which only moves when an item changes parent, and for isVisible, which also moves on
+     * expand and collapse. a change bumps one counter instead of walking the whole subtree below it, and descendants
+     * re-derive from their ancestors the next time they're read.
+     */
+    private static long hierarchyEpoch = 0;
+    private static long visibilityEpoch = 0;
+
+    private static int updateDepth = 0;
+    private static final Set<TreeItem<?>> pendingUpdates = new LinkedHashSet<>();
+    private int pendingChanges = 0;
+
+    /**
+     * starts a batch of changes. until the matching {@link #endUpdate()} the dirty marking and layout requests of every
+     * tree item change are deferred, then run once per changed item. derived values read in the middle of a batch
+     * may be stale. batches nest.
+     * a batch isn't tied to one tree. changes made to any tree in the jvm while it's open are deferred with the rest,
+     * and their derived values may be just as stale until it ends.
+     */
+    public static void beginUpdate() {
+        updateDepth++;
+    }
+
+    public static void endUpdate() {
+        if(updateDepth == 0)
+            throw new IllegalStateException("endUpdate called without a matching beginUpdate");
+        if(--updateDepth > 0)
+            return;
+
+        List<TreeItem<?>> changed = new ArrayList<>(pendingUpdates);
+        pendingUpdates.clear();
+        for (TreeItem<?> item : changed)
+            item.applyPendingChanges();
+
+        Set<Parent> layoutParents = new LinkedHashSet<>();
+        for (TreeItem<?> item : changed) {
+            TreeCell<?> cell = item.currentCellProperty.get();
+            if(cell != null) {
+                cell.requestLayout();
+                if(cell.getParent() != null)
+                    layoutParents.add(cell.getParent());
+            }
+        }
+        layoutParents.forEach(Parent::requestLayout);
+    }
+
+    /**
+     * runs the changes as one batch, see {@link #beginUpdate()}
+     */
+    public static void batch(Runnable changes) {
+        beginUpdate();
+        try {
+            changes.run();
+        } finally {
+            endUpdate();
+        }
+    }
+
+    private void structureChanged(int change) {
+        structureEpoch++;
+        if((change & PARENT_CHANGED) != 0)
+            hierarchyEpoch++;
+        if((change & (PARENT_CHANGED | SHOW_CHILDREN_CHANGED)) != 0)
+            visibilityEpoch++;
+        if(updateDepth > 0) {
+            if(pendingChanges == 0)
+                pendingUpdates.add(this);
+            pendingChanges |= change;
+        } else {
+            invalidate(change);
+            requestParentLayout();
+        }
+    }
+
+    private void applyPendingChanges() {
+        int changes = pendingChanges;
+        pendingChanges = 0;
+        invalidate(changes);
+    }
+
+    private void invalidate(int changes) {
+        if((changes & CHILDREN_CHANGED) != 0) {
+            markDescCntDirty();
+            markVisibleDescCntDirty();
+        }
+        if((changes & SHOW_CHILDREN_CHANGED) != 0)
+            markVisibleDescCntDirty();
+        if((changes & (CHILDREN_CHANGED | SHOW_CHILDREN_CHANGED)) != 0)
+            markHeightsDirty();
+        //a new parent's own list change takes care of the counts, and everything else is checked against the epochs
+    }
+
+    /*
+     * none of the lazy values below may recurse through the tree, trees get deep and wide enough to overflow the stack.
+     * a value that depends on its children or its parent first settles the stale ones it depends on with the loops
+     * below, so by the time it's read every item it reads is current and only costs one level of stack.
+     */
+
+    /**
+     * collects the stale descendants under item in pre order, then reads them in reverse so every one is evaluated
+     * after its children. a clean item has clean descendants, so clean subtrees are skipped.
+     */
+    private static <T> void settleDescendants(TreeItem<T> item, Predicate<TreeItem<T>> isStale, Predicate<TreeItem<T>> descend, Consumer<TreeItem<T>> read) {
+        settleCandidates(item, isStale, i -> descend.test(i) ? i.childrenProperty : List.of(), read);
+    }
+
+    /**
+     * the same, looking for stale descendants only among the candidates each item gives rather than all its children
+     */
+    private static <T> void settleCandidates(TreeItem<T> item, Predicate<TreeItem<T>> isStale, Function<TreeItem<T>, List<TreeItem<T>>> candidates, Consumer<TreeItem<T>> read) {
+        ArrayList<TreeItem<T>> stale = new ArrayList<>();
+        ArrayList<TreeItem<T>> toVisit = new ArrayList<>();
+        toVisit.add(item);
+        while (!toVisit.isEmpty()) {
+            TreeItem<T> next = toVisit.removeLast();
+            stale.add(next);
+            for (TreeItem<T> c : candidates.apply(next))
+                if (isStale.test(c))
+                    toVisit.add(c);
+        }
+        for (int i = stale.size() - 1; i >= 0; i--)
+            read.accept(stale.get(i));
+    }
 
-    final ReadOnlyObjectWrapper<TreeGuideNode<T>> settableParentGuideProperty = new ReadOnlyObjectWrapper<>(null);
-    public final ReadOnlyObjectProperty<TreeGuideNode<T>> currentParentGuideProperty = settableParentGuideProperty.getReadOnlyProperty();
+    /**
+     * reads the stale ancestors of item from the top down, so each of them only ever reads a parent that is current
+     */
+    private static <T> void settleAncestors(TreeItem<T> item, Predicate<TreeItem<T>> isStale, Consumer<TreeItem<T>> read) {
+        ArrayList<TreeItem<T>> stale = null;
+        for (TreeItem<T> p = item.parentProperty.get(); p != null && isStale.test(p); p = p.parentProperty.get()) {
+            if (stale == null)
+                stale = new ArrayList<>();
+            stale.add(p);
+        }
+        if (stale != null)
+            for (int i = stale.size() - 1; i >= 0; i--)
+                read.accept(stale.get(i));
+    }
 
+    /**
+     * reads the stale items down the chain of last children below item from the bottom up
+     */
+    private static <T> void settleLastChildren(TreeItem<T> item, Predicate<TreeItem<T>> isStale, Predicate<TreeItem<T>> descend, Consumer<TreeItem<T>> read) {
+        ArrayList<TreeItem<T>> stale = null;
+        for (TreeItem<T> c = item; descend.test(c); ) {
+            c = c.childrenProperty.get(c.childrenProperty.size() - 1);
+            if (!isStale.test(c))
+                break;
+            if (stale == null)
+                stale = new ArrayList<>();
+            stale.add(c);
+        }
+        if (stale != null)
+            for (int i = stale.size() - 1; i >= 0; i--)
+                read.accept(stale.get(i));
+    }
 
     private boolean descCntDirty = true;
 
     private void markDescCntDirty(){
-        descCntDirty = true;
-        if(parentProperty.get() != null)
-            parentProperty.get().markDescCntDirty();
+        //an item that is already dirty has dirty ancestors, since counting any of them would have counted it too
+        for (TreeItem<T> item = this; item != null && !item.descCntDirty; item = item.parentProperty.get())
+            item.descCntDirty = true;
     }
     public final ReadOnlyIntegerProperty descCountProperty = new ReadOnlyIntegerWrapper() {
         @Override
         public int get() {
-            if(descCntDirty) {
+            if(modelItems != null)
+                set(modelItems.model.descendantCount(modelNode));
+            else if(descCntDirty) {
                 descCntDirty = false;
+                for (TreeItem<T> c : childrenProperty)
+                    if (c.descCntDirty)
+                        settleDescendants(c, i -> i.descCntDirty, i -> true, i -> i.descCountProperty.get());
                 int cnt = 0;
                 for (TreeItem<T> c : childrenProperty) {
                     cnt += 1 + c.descCountProperty.get();
@@ -63,52 +318,344 @@ public class TreeItem<T> {
 
     private boolean visibleDescCntDirty = true;
     private void markVisibleDescCntDirty(){
-        visibleDescCntDirty = true;
-        if(parentProperty.get() != null)
-            parentProperty.get().markVisibleDescCntDirty();
+        for (TreeItem<T> item = this; item != null && !item.visibleDescCntDirty; item = item.parentProperty.get()) {
+            item.visibleDescCntDirty = true;
+            TreeItem<T> parent = item.parentProperty.get();
+            if(parent != null)
+                parent.childRowsChanged(item);
+            else
+                item.rootStructureChanges++;
+        }
+    }
+
+    //bumped when a change below this item marks its way up to it, while it is a root
+    private long rootStructureChanges = 0;
+
+    /**
+     * moves whenever the structure of the tree under this root has changed since the last call, so a view can tell
+     * changes to its own tree from changes to others'. a change only marks up to the first ancestor already waiting to
+     * be recounted, so this recounts the root to have the next change reach it again
+     */
+    long structureChanges() {
+        visibleDescCountProperty.get();
+        return rootStructureChanges;
     }
     public final ReadOnlyIntegerProperty visibleDescCountProperty = new ReadOnlyIntegerWrapper() {
         @Override
         public int get() {
-            if(visibleDescCntDirty) {
+            if(modelItems != null)
+                set(modelItems.model.visibleDescendantCount(modelNode));
+            else if(visibleDescCntDirty) {
                 visibleDescCntDirty = false;
                 int cnt = 0;
                 if(showChildrenProperty.get())
-                    for (TreeItem<T> c : childrenProperty) {
-                        cnt += 1 + c.visibleDescCountProperty.get();
-                    }
+                    cnt = childVisibleOffset(childrenProperty.size());
                 setValue(cnt);
             }
             return super.get();
         }
     }.getReadOnlyProperty();
 
-    private boolean visibleIndexDirty = true;
-    private void markVisibleIndexDirty(){
-        visibleIndexDirty = true;
-        markNextVisibleItemsIndexDirty();
+    /**
+     * the visible rows each child takes, itself and its visible descendants, in a fenwick tree over the children. the
+     * rows above any child are summed in O(log siblings), which is the order statistic index findVisibleItemAtIndex
+     * descends through and visible indexes are summed from, and a child whose count changes is updated in the same time.
+     * a child's count is only read again once something asks, the children whose counts may have moved wait in
+     * staleRowChildren until then.
+     * adding or removing children at the end keeps the tree. anywhere else the counts are turned back into plain ones
+     * and shifted with one array copy, and summed into a tree again the next time they're read. so an insert into the
+     * middle of a wide item is still linear in its children, a pass over their counts plus renumbering the siblings
+     * after it (see reindexChildren), though neither re-reads any child's count. around 15ms for a 500k child item
+     * when every insert is read back, so insert many at once with addAll or inside {@link #batch(Runnable)}.
+     */
+    //1 based. a fenwick tree unless childRowsPlain, then the counts themselves
+    private int[] childRows = new int[1];
+    private int childRowCount = 0;
+    private boolean childRowsPlain = false;
+    //set when the children were reordered, every count is read again
+    private boolean childRowsUnknown = false;
+    private List<TreeItem<T>> staleRowChildren = null;
+
+    private void childRowsChanged(TreeItem<T> child) {
+        if(childRowsUnknown)
+            return;
+        if(staleRowChildren == null)
+            staleRowChildren = new ArrayList<>();
+        //a collapsed item's children can go stale again and again without it reading them, so don't let the list grow past them
+        if(staleRowChildren.size() > childRowCount) {
+            childRowsUnknown = true;
+            staleRowChildren.clear();
+            return;
+        }
+        staleRowChildren.add(child);
+    }
+
+    /**
+     * keeps the counts lined up with the children after a change that removed some at from and added others there
+     */
+    private void childrenReplaced(int from, int removed, int added) {
+        if(childRowsUnknown)
+            return;
+        if(!childRowsPlain && removed == 0 && from == childRowCount) {
+            //appended children count as 0 until they're read, so the new entries sum the ones they cover
+            ensureChildRowsCapacity(childRowCount + added);
+            for (int k = 0; k < added; k++) {
+                int i = ++childRowCount;
+                childRows[i] = childRowsBefore(i - 1) - childRowsBefore(i - (i & -i));
+            }
+        } else if(!childRowsPlain && added == 0 && from + removed == childRowCount) {
+            //entries never cover later children, so the ones left are still right
+            childRowCount = from;
+        } else {
+            toPlainChildRows();
+            ensureChildRowsCapacity(childRowCount - removed + added);
+            System.arraycopy(childRows, from + 1 + removed, childRows, from + 1 + added, childRowCount - from - removed);
+            Arrays.fill(childRows, from + 1, from + 1 + added, 0);
+            childRowCount += added - removed;
+        }
+    }
+
+    private void ensureChildRowsCapacity(int count) {
+        if(childRows.length <= count)
+            childRows = Arrays.copyOf(childRows, Math.max(count + 1, childRows.length * 2));
+    }
+
+    private void toPlainChildRows() {
+        if(childRowsPlain)
+            return;
+        for (int i = childRowCount; i > 0; i--) {
+            int parent = i + (i & -i);
+            if(parent <= childRowCount)
+                childRows[parent] -= childRows[i];
+        }
+        childRowsPlain = true;
+    }
+
+    /**
+     * reads the counts of the children that may have changed and puts the counts back into a fenwick tree
+     */
+    private void settleChildRows() {
+        if(childRowsUnknown) {
+            childRowsUnknown = false;
+            if(staleRowChildren != null)
+                staleRowChildren.clear();
+            childRowCount = childrenProperty.size();
+            ensureChildRowsCapacity(childRowCount);
+            for (int i = 0; i < childRowCount; i++)
+                childRows[i + 1] = childRowsOf(childrenProperty.get(i));
+            childRowsPlain = true;
+        } else if(staleRowChildren != null && !staleRowChildren.isEmpty()) {
+            //past a few, point updates cost more than summing the tree again
+            if(staleRowChildren.size() * 32L > childRowCount)
+                toPlainChildRows();
+            for (int s = 0; s < staleRowChildren.size(); s++) {
+                TreeItem<T> c = staleRowChildren.get(s);
+                if(c.parentProperty.get() != this)
+                    continue;
+                int i = c.indexUnder(this) + 1;
+                int rows = childRowsOf(c);
+                if(childRowsPlain)
+                    childRows[i] = rows;
+                else {
+                    int change = rows - (childRowsBefore(i) - childRowsBefore(i - 1));
+                    for (int j = i; j <= childRowCount && change != 0; j += j & -j)
+                        childRows[j] += change;
+                }
+            }
+            staleRowChildren.clear();
+        }
+        if(childRowsPlain) {
+            childRowsPlain = false;
+            for (int i = 1; i <= childRowCount; i++) {
+                int parent = i + (i & -i);
+                if(parent <= childRowCount)
+                    childRows[parent] += childRows[i];
+            }
+        }
+    }
+
+    private static <T> int childRowsOf(TreeItem<T> child) {
+        if (child.visibleDescCntDirty)
+            settleCandidates(child, d -> d.visibleDescCntDirty, TreeItem::childrenWithStaleRows, d -> d.visibleDescCountProperty.get());
+        return 1 + child.visibleDescCountProperty.get();
+    }
+
+    /**
+     * the children whose visible row counts may be dirty. a child whose count is marked dirty is put in its parent's
+     * staleRowChildren, so only those need looking at, unless the counts were dropped altogether
+     */
+    private List<TreeItem<T>> childrenWithStaleRows() {
+        if(!showChildrenProperty.get())
+            return List.of();
+        if(childRowsUnknown)
+            return childrenProperty;
+        return staleRowChildren == null ? List.of() : staleRowChildren;
+    }
+
+    //the rows taken by the first count children, straight from the tree
+    private int childRowsBefore(int count) {
+        int rows = 0;
+        for (int i = count; i > 0; i -= i & -i)
+            rows += childRows[i];
+        return rows;
+    }
+
+    /**
+     * how far below this item's first child the child at childIndex sits when this item is expanded. childIndex may be
+     * the child count, for the total
+     */
+    private int childVisibleOffset(int childIndex) {
+        settleChildRows();
+        return childRowsBefore(childIndex);
+    }
+
+    /**
+     * the index of the child whose rows hold the row offset below this item's first child
+     */
+    private int childAtVisibleOffset(int offset) {
+        settleChildRows();
+        int passed = 0;
+        int rows = 0;
+        for (int step = Integer.highestOneBit(Math.max(childRowCount, 1)); step > 0; step >>= 1) {
+            int next = passed + step;
+            if(next <= childRowCount && rows + childRows[next] <= offset) {
+                passed = next;
+                rows += childRows[next];
+            }
+        }
+        return Math.min(passed, childRowCount - 1);
+    }
+
+    /*
+     * row heights for scrolling by length, see AlignmentMethod.LENGTH. each item sums the measured heights of its own
+     * row and its visible descendants' rows, and counts the rows among them that were never measured, so an estimate
+     * for those can change without invalidating anything. an expanded item keeps its children's sums in fenwick trees,
+     * so a measurement reaches the root in O(depth * log siblings) and offsets are found in the same time.
+     * structural changes mark the sums dirty up to the root and they're rebuilt the next time they're read.
+     */
+    private double rowHeight = Double.NaN;
+    private boolean heightsDirty = true;
+    private double visibleMeasuredHeight;
+    private int visibleUnmeasuredRows;
+    //1 based, over the children as they were when the sums were last built. only current while expanded and not dirty
+    private double[] childMeasuredHeights = new double[1];
+    private int[] childUnmeasuredRows = new int[1];
+    private int heightChildCount = 0;
+
+    private void markHeightsDirty() {
+        //a dirty item's ancestors are dirty too, or collapsed and not counting it
+        for (TreeItem<T> item = this; item != null && !item.heightsDirty; item = item.parentProperty.get())
+            item.heightsDirty = true;
+    }
+
+    /**
+     * records the height a view measured this item's row at, margins included
+     */
+    void setMeasuredRowHeight(double height) {
+        if(modelItems != null || height == rowHeight)
+            return;
+        double measuredChange = height - (Double.isNaN(rowHeight) ? 0 : rowHeight);
+        int unmeasuredChange = Double.isNaN(rowHeight) ? -1 : 0;
+        rowHeight = height;
+        if(heightsDirty)
+            return;
+        if(updateDepth > 0) {
+            //the structure may be about to change under the sums, so leave them to be rebuilt
+            markHeightsDirty();
+            return;
+        }
+
+        visibleMeasuredHeight += measuredChange;
+        visibleUnmeasuredRows += unmeasuredChange;
+        for (TreeItem<T> c = this, p = parentProperty.get(); p != null && !p.heightsDirty && p.showChildrenProperty.get(); c = p, p = p.parentProperty.get()) {
+            for (int i = c.indexUnder(p) + 1; i <= p.heightChildCount; i += i & -i) {
+                p.childMeasuredHeights[i] += measuredChange;
+                p.childUnmeasuredRows[i] += unmeasuredChange;
+            }
+            p.visibleMeasuredHeight += measuredChange;
+            p.visibleUnmeasuredRows += unmeasuredChange;
+        }
+    }
+
+    private void settleHeights() {
+        if(heightsDirty)
+            settleDescendants(this, i -> i.heightsDirty, i -> i.showChildrenProperty.get(), TreeItem::sumHeights);
+    }
+
+    /**
+     * rebuilds this item's sums from its children's, which have to be current already
+     */
+    private void sumHeights() {
+        heightsDirty = false;
+        visibleMeasuredHeight = Double.isNaN(rowHeight) ? 0 : rowHeight;
+        visibleUnmeasuredRows = Double.isNaN(rowHeight) ? 1 : 0;
+        if(!showChildrenProperty.get())
+            return;
+
+        int count = childrenProperty.size();
+        if(childMeasuredHeights.length <= count) {
+            childMeasuredHeights = new double[count + 1];
+            childUnmeasuredRows = new int[count + 1];
+        }
+        heightChildCount = count;
+        for (int i = 1; i <= count; i++) {
+            TreeItem<T> c = childrenProperty.get(i - 1);
+            childMeasuredHeights[i] = c.visibleMeasuredHeight;
+            childUnmeasuredRows[i] = c.visibleUnmeasuredRows;
+            visibleMeasuredHeight += c.visibleMeasuredHeight;
+            visibleUnmeasuredRows += c.visibleUnmeasuredRows;
+        }
+        for (int i = 1; i <= count; i++) {
+            int parent = i + (i & -i);
+            if(parent <= count) {
+                childMeasuredHeights[parent] += childMeasuredHeights[i];
+                childUnmeasuredRows[parent] += childUnmeasuredRows[i];
+            }
+        }
     }
-    private void markNextVisibleItemsIndexDirty(){
-        if(nextVisibleItemProperty.get() != null)
-            nextVisibleItemProperty.get().markVisibleIndexDirty();
+
+    /**
+     * the height this item's row was last measured at, or the estimate when it hasn't been
+     */
+    double ownRowHeight(double estimate) {
+        return Double.isNaN(rowHeight) ? estimate : rowHeight;
     }
-    private void markChildrenVisibleIndexDirty() {
-        for (TreeItem<T> tTreeItem : childrenProperty) {
-            tTreeItem.markVisibleIndexDirty();
+
+    /**
+     * the height of the rows taken by the first childIndex children
+     */
+    private double childHeightOffset(int childIndex, double estimate) {
+        double measured = 0;
+        int unmeasured = 0;
+        for (int i = childIndex; i > 0; i -= i & -i) {
+            measured += childMeasuredHeights[i];
+            unmeasured += childUnmeasuredRows[i];
         }
+        return measured + unmeasured * estimate;
     }
+
+    private long visibleIndexEpoch = -1;
+    /**
+     * the parent's index, plus one for the parent itself, plus the rows taken by the siblings before this item
+     */
     public final ReadOnlyObjectProperty<Integer> visibleIndexProperty = new ReadOnlyObjectWrapper<Integer>() {
         @Override
         public Integer get() {
-            if(visibleIndexDirty) {
-                visibleIndexDirty = false;
-                if (parentProperty.get()!=null) {
+            if(modelItems != null) {
+                Integer old = super.get();
+                int index = modelItems.model.visibleIndex(modelNode);
+                set(index < 0 ? null : index);
+                if(!Objects.equals(old, super.get()) && currentCellProperty.get()!=null && index >= 0) {
+                    currentCellProperty.get().updateIndexClass();
+                    currentCellProperty.get().updateChildIndexClass();
+                }
+            } else if(visibleIndexEpoch != structureEpoch) {
+                visibleIndexEpoch = structureEpoch;
+                TreeItem<T> parent = parentProperty.get();
+                if (parent != null) {
                     if(isVisibleProperty.get()) {
-                        TreeItem<T> pre = previousVisibleItemProperty.get();
-                        if (pre != null)
-                            set(pre.visibleIndexProperty.get() + 1);
-                        else
-                            throw new RuntimeException("impossible.");
+                        settleAncestors(TreeItem.this, i -> i.visibleIndexEpoch != structureEpoch, i -> i.visibleIndexProperty.get());
+                        set(parent.visibleIndexProperty.get() + 1 + parent.childVisibleOffset(indexUnder(parent)));
                     } else
                         set(null);
                 } else {
@@ -125,22 +672,16 @@ public class TreeItem<T> {
     }.getReadOnlyProperty();
 
 
-    private boolean isVisibleDirty = true;
-    private void markIsVisibleDirty(){
-        isVisibleDirty = true;
-        markChildrenIsVisibleDirty();
-    }
-    private void markChildrenIsVisibleDirty(){
-        for (TreeItem<T> c : childrenProperty.get()) {
-            c.markIsVisibleDirty();
-        }
-    }
+    private long isVisibleEpoch = -1;
     public final ReadOnlyBooleanProperty isVisibleProperty = new ReadOnlyBooleanWrapper() {
         @Override
         public boolean get() {
-            if (isVisibleDirty) {
-                isVisibleDirty = false;
+            if (modelItems != null)
+                set(modelItems.model.isVisible(modelNode));
+            else if (isVisibleEpoch != visibilityEpoch) {
+                isVisibleEpoch = visibilityEpoch;
                 if (parentProperty.get()!=null) {
+                    settleAncestors(TreeItem.this, i -> i.isVisibleEpoch != visibilityEpoch, i -> i.isVisibleProperty.get());
                     set(parentProperty.get().showChildrenProperty.get() && parentProperty.get().isVisibleProperty.get());
                 } else
                     set(true);//root is always visible
@@ -149,44 +690,44 @@ public class TreeItem<T> {
         }
     }.getReadOnlyProperty();
 
-    private boolean deptDirty = true;
-    private void markDepthDirty(){
-        deptDirty = true;
-        for (TreeItem<T> tTreeItem : childrenProperty.get()) {
-            tTreeItem.markDepthDirty();
-        }
-    }
+    private long depthEpoch = -1;
     public final ReadOnlyIntegerProperty depthProperty = new ReadOnlyIntegerWrapper() {
         @Override
         public int get() {
-            if(deptDirty) {
-                deptDirty = false;
+            if(modelItems != null) {
+                int old = super.get();
+                set(modelItems.model.depth(modelNode));
+                if(old != super.get() && currentCellProperty.get()!=null)
+                    currentCellProperty.get().updateDepthClass();
+            } else if(depthEpoch != hierarchyEpoch) {
+                depthEpoch = hierarchyEpoch;
+                int old = super.get();
                 TreeItem<T> pre = parentProperty.get();
-                if(pre != null)
+                if(pre != null) {
+                    settleAncestors(TreeItem.this, i -> i.depthEpoch != hierarchyEpoch, i -> i.depthProperty.get());
                     set(pre.depthProperty.get()+1);
-                else
+                } else
                     set(0);
 
-                if(currentCellProperty.get()!=null && isVisibleProperty.get())
+                if(old != super.get() && currentCellProperty.get()!=null && isVisibleProperty.get())
                     currentCellProperty.get().updateDepthClass();
             }
             return super.get();
         }
     }.getReadOnlyProperty();
 
-    private boolean previousVisibleItemDirty = true;
-    private void markPreviousVisibleItemDirty(){
-        previousVisibleItemDirty = true;
-    }
+    private long previousVisibleItemEpoch = -1;
     public final ReadOnlyObjectProperty<TreeItem<T>> previousVisibleItemProperty = new ReadOnlyObjectWrapper<TreeItem<T>>() {
         @Override
         public TreeItem<T> get() {
-            if (previousVisibleItemDirty) {
-                previousVisibleItemDirty = false;
+            if (modelItems != null)
+                setValue(modelItems.materialize(modelItems.model.previousVisible(modelNode)));
+            else if (previousVisibleItemEpoch != structureEpoch) {
+                previousVisibleItemEpoch = structureEpoch;
                 if(parentProperty.get()==null)
                     setValue(null);
                 else {
-                    int cIndex = parentProperty.get().childrenProperty.indexOf(TreeItem.this);
+                    int cIndex = indexInParent();
                     if (cIndex == 0)
                         setValue(parentProperty.get());
                     else {
@@ -199,53 +740,39 @@ public class TreeItem<T> {
         }
     }.getReadOnlyProperty();
 
-    private boolean nextVisibleItemDirty = true;
-    private void markNextVisibleItemDirty(){
-        nextVisibleItemDirty = true;
-        markNextVisibleItemExceptChildrenDirty();
-    }
+    private long nextVisibleItemEpoch = -1;
     public final ReadOnlyObjectProperty<TreeItem<T>> nextVisibleItemProperty = new ReadOnlyObjectWrapper<TreeItem<T>>() {
         @Override
         public TreeItem<T> get() {
-            if (nextVisibleItemDirty) {
-                nextVisibleItemDirty = false;
-                TreeItem<T> old = get();
+            if (modelItems != null)
+                set(modelItems.materialize(modelItems.model.nextVisible(modelNode)));
+            else if (nextVisibleItemEpoch != structureEpoch) {
+                nextVisibleItemEpoch = structureEpoch;
                 if (showChildrenProperty.get() && !childrenProperty.isEmpty())
                     set(childrenProperty.get(0));
                 else
                     set(nextVisibleItemExceptChildrenProperty.get());
-
-                if (old != get() && get() != null) {
-                    get().markNextVisibleItemDirty();//since the next visible item changed, the whole run may need to recalculate
-                    if(old != null)
-                        old.markNextVisibleItemDirty();
-                }
             }
             return super.get();
         }
     }.getReadOnlyProperty();
 
-    private boolean nextVisibleItemExceptChildrenDirty = true;
-    private void markNextVisibleItemExceptChildrenDirty(){
-        nextVisibleItemExceptChildrenDirty = true;
-        if(!childrenProperty.isEmpty() && showChildrenProperty.get()) {
-            if(this != latestVisibleDescendantProperty.get())
-                latestVisibleDescendantProperty.get().markNextVisibleItemDirty();
-            childrenProperty.get(childrenProperty.size() - 1).markNextVisibleItemExceptChildrenDirty();
-        }
-    }
+    private long nextVisibleItemExceptChildrenEpoch = -1;
     public final ReadOnlyObjectProperty<TreeItem<T>> nextVisibleItemExceptChildrenProperty = new ReadOnlyObjectWrapper<TreeItem<T>>() {
         @Override
         public TreeItem<T> get() {
-            if (nextVisibleItemExceptChildrenDirty) {
-                nextVisibleItemExceptChildrenDirty = false;
+            if (modelItems != null)
+                setValue(modelItems.materialize(modelItems.model.nextVisibleExceptChildren(modelNode)));
+            else if (nextVisibleItemExceptChildrenEpoch != structureEpoch) {
+                nextVisibleItemExceptChildrenEpoch = structureEpoch;
                 if (parentProperty.get()==null)
                     setValue(null);
                 else {
-                    int cIndex = parentProperty.get().childrenProperty.indexOf(TreeItem.this);
+                    int cIndex = indexInParent();
                     if (cIndex < parentProperty.get().childrenProperty.size()-1)
                         setValue(parentProperty.get().childrenProperty.get(cIndex+1));
                     else {
+                        settleAncestors(TreeItem.this, i -> i.nextVisibleItemExceptChildrenEpoch != structureEpoch, i -> i.nextVisibleItemExceptChildrenProperty.get());
                         TreeItem<T> nex = parentProperty.get().nextVisibleItemExceptChildrenProperty.get();
                         setValue(nex);
                     }
@@ -255,58 +782,82 @@ public class TreeItem<T> {
         }
     }.getReadOnlyProperty();
 
-    private boolean latestVisibleDescendantDirty = true;
-    private void markLatestVisibleDescendantDirty(){
-        latestVisibleDescendantDirty = true;
-        markNextExceptChildrenPreviousDirty();
-        if(parentProperty.get()!=null && parentProperty.get().showChildrenProperty.get())
-            if (parentProperty.get().childrenProperty.get(parentProperty.get().childrenProperty.size()-1) == TreeItem.this)
-                parentProperty.get().markLatestVisibleDescendantDirty();
-    }
-    private void markNextExceptChildrenPreviousDirty() {
-        if(nextVisibleItemExceptChildrenProperty.get()!=null)
-            nextVisibleItemExceptChildrenProperty.get().markPreviousVisibleItemDirty();
-    }
+    private long latestVisibleDescendantEpoch = -1;
     /**
      * if a tree item is collapsed, this will return its self. otherwise this is the latest descendent item of this element
      */
     public final ReadOnlyObjectProperty<TreeItem<T>> latestVisibleDescendantProperty = new ReadOnlyObjectWrapper<TreeItem<T>>() {
         @Override
         public TreeItem<T> get() {
-            if (latestVisibleDescendantDirty) {
-                latestVisibleDescendantDirty = false;
-                if (!showChildrenProperty.get())
+            if (modelItems != null)
+                setValue(modelItems.materialize(modelItems.model.latestVisibleDescendant(modelNode)));
+            else if (latestVisibleDescendantEpoch != structureEpoch) {
+                latestVisibleDescendantEpoch = structureEpoch;
+                if (!showChildrenProperty.get() || childrenProperty.isEmpty())
                     setValue(TreeItem.this);
-                else
+                else {
+                    settleLastChildren(TreeItem.this, i -> i.latestVisibleDescendantEpoch != structureEpoch,
+                            i -> i.showChildrenProperty.get() && !i.childrenProperty.isEmpty(), i -> i.latestVisibleDescendantProperty.get());
                     setValue(childrenProperty.get(childrenProperty.size()-1).latestVisibleDescendantProperty.get());
+                }
             }
             return super.get();
         }
     }.getReadOnlyProperty();
 
-    private boolean latestLogicalDescendantDirty = true;
-    private void markLatestLogicalDescendantDirty(){
-        latestLogicalDescendantDirty = true;
-        if(parentProperty.get()!=null)
-            if (parentProperty.get().childrenProperty.get(parentProperty.get().childrenProperty.size()-1) == TreeItem.this)
-                parentProperty.get().markLatestLogicalDescendantDirty();
-    }
+    private long latestLogicalDescendantEpoch = -1;
+    private TreeItem<T> latestLogicalDescendant = null;
     /**
      * if a tree item has no children, this will return its self. otherwise this is the latest descendent item of this element
      */
-    public final ReadOnlyObjectProperty<TreeItem<T>> latestLogicalDescendantProperty = new ReadOnlyObjectWrapper<TreeItem<T>>() {
+    public final ReadOnlyObjectProperty<TreeItem<T>> latestLogicalDescendantProperty = new ReadOnlyObjectPropertyBase<>() {
         @Override
         public TreeItem<T> get() {
-            if (latestLogicalDescendantDirty) {
-                latestLogicalDescendantDirty = false;
+            TreeItem<T> old = latestLogicalDescendant;
+            if (modelItems != null)
+                latestLogicalDescendant = modelItems.materialize(modelItems.model.latestLogicalDescendant(modelNode));
+            else if (latestLogicalDescendantEpoch != structureEpoch) {
+                latestLogicalDescendantEpoch = structureEpoch;
                 if (childrenProperty.isEmpty())
-                    setValue(TreeItem.this);
-                else
-                    setValue(childrenProperty.get(childrenProperty.size()-1).latestLogicalDescendantProperty.get());
+                    latestLogicalDescendant = TreeItem.this;
+                else {
+                    settleLastChildren(TreeItem.this, i -> i.latestLogicalDescendantEpoch != structureEpoch,
+                            i -> !i.childrenProperty.isEmpty(), i -> i.latestLogicalDescendantProperty.get());
+                    latestLogicalDescendant = childrenProperty.get(childrenProperty.size()-1).latestLogicalDescendantProperty.get();
+                }
             }
-            return super.get();
+            if (old != latestLogicalDescendant)
+                fireValueChangedEvent();
+            return latestLogicalDescendant;
         }
-    }.getReadOnlyProperty();
+
+        @Override
+        public Object getBean() {
+            return TreeItem.this;
+        }
+
+        @Override
+        public String getName() {
+            return "latestLogicalDescendant";
+        }
+    };
+
+    private enum LoadState { UNLOADED, LOADING, LOADED }
+    private LoadState loadState = LoadState.UNLOADED;
+    //the fetch whose result is still wanted. a fetch that finds it has been replaced drops its result
+    private Thread loadingThread = null;
+    private boolean loadingPlaceholder = false;
+    //the placeholder in this item's children while it's loading
+    private TreeItem<T> placeholderChild = null;
+
+    /**
+     * position in the parent's children, or -1 while unknown. it is trusted while it sits below the parent's
+     * childIndexesValidUpTo, which list changes lower to the first index they touched.
+     */
+    private int indexInParent = -1;
+    private int childIndexesValidUpTo = 0;
+    //the child whose parent is being set from childrenChangedHandler, so parentChangedHandler doesn't search the list for it
+    private TreeItem<T> childInTransit = null;
 
     public TreeItem(T someValue) {
         this();
@@ -318,41 +869,34 @@ public class TreeItem<T> {
 
     private void childrenChangedHandler(ListChangeListener.Change<? extends TreeItem<T>> c) {
         childrenProperty.get();
-        boolean firstChanged = false;
-        boolean lastChanged = false;
         while(c.next()) {
+            childIndexesValidUpTo = Math.min(childIndexesValidUpTo, c.getFrom());
+            if (c.wasPermutated())
+                childRowsUnknown = true;
+            else if (c.wasAdded() || c.wasRemoved())
+                childrenReplaced(c.getFrom(), c.getRemovedSize(), c.getAddedSize());
             if (c.wasRemoved()) {
                 for (TreeItem<T> removedChild : c.getRemoved()) {
-                    if (removedChild.parentProperty.get() == this)
+                    if (removedChild.parentProperty.get() == this) {
+                        childInTransit = removedChild;
                         removedChild.parentProperty.set(null);
+                        childInTransit = null;
+                    }
                 }
-                if(c.getFrom() == 0)
-                    firstChanged = true;
-                if(c.getTo() == c.getList().size())
-                    lastChanged = true;
             }
             if (c.wasAdded()) {
                 for (TreeItem<T> addedChild : c.getAddedSubList()) {
-                    if (addedChild.parentProperty.get() != this)
+                    childRowsChanged(addedChild);
+                    if (addedChild.parentProperty.get() != this) {
+                        childInTransit = addedChild;
                         addedChild.parentProperty.set(this);
+                        childInTransit = null;
+                    }
                 }
-                if(c.getFrom() == 0)
-                    firstChanged = true;
-                if(c.getTo() == c.getList().size())
-                    lastChanged = true;
             }
         }
 
-        markDescCntDirty();
-        markVisibleDescCntDirty();
-        if (firstChanged && showChildrenProperty.get())
-            markNextVisibleItemDirty();
-        if (lastChanged) {
-            markLatestVisibleDescendantDirty();
-            markLatestLogicalDescendantDirty();
-            markNextExceptChildrenPreviousDirty();
-        }
-        requestParentLayout();
+        structureChanged(CHILDREN_CHANGED);
     }
 
     private void requestParentLayout(){
@@ -364,53 +908,172 @@ public class TreeItem<T> {
     }
     private void showChildrenChangedHandler(ObservableValue<? extends Boolean> s, Boolean a, Boolean b) {
         showChildrenProperty.get();//non lazy
-        markNextExceptChildrenPreviousDirty();
-        markNextVisibleItemExceptChildrenDirty();
-        markChildrenIsVisibleDirty();
-        markChildrenVisibleIndexDirty();
-        markVisibleDescCntDirty();
-        markNextVisibleItemDirty();
+        if (modelItems != null) {
+            modelItems.model.setExpanded(modelNode, b);
+            return;
+        }
+        if (!Objects.equals(a, b)) {
+            structureChanged(SHOW_CHILDREN_CHANGED);
+            if (b)
+                loadChildrenIfNeeded();
+            else
+                cancelLoading();
+        }
+    }
+
+    private void loadChildrenIfNeeded() {
+        ChildrenProvider<T> provider = childrenProviderProperty.get();
+        if (provider == null || loadState != LoadState.UNLOADED || !showChildrenProperty.get())
+            return;
+
+        loadState = LoadState.LOADING;
+        TreeItem<T> placeholder = new TreeItem<>();
+        placeholder.loadingPlaceholder = true;
+        placeholderChild = placeholder;
+        childrenProperty.add(placeholder);
+
+        T parentValue = valueProperty.get();
+        //results come back through runLater, so they can't be applied before loadingThread is set below
+        loadingThread = Thread.ofVirtual().name("tree-item-children").start(() -> {
+            Thread fetch = Thread.currentThread();
+            try {
+                List<? extends T> values = provider.fetchChildren(parentValue);
+                Platform.runLater(() -> childrenFetched(fetch, provider, values));
+            } catch (Throwable t) {
+                //errors too, or the item would be left loading for good. they still reach the thread's handler after
+                Platform.runLater(() -> childrenFetchFailed(fetch, t));
+                if (t instanceof Error error)
+                    throw error;
+            }
+        });
+    }
+
+    private void childrenFetched(Thread fetch, ChildrenProvider<T> provider, List<? extends T> values) {
+        if (loadingThread != fetch)
+            return;
+        loadingThread = null;
+        loadState = LoadState.LOADED;
+
+        List<TreeItem<T>> loaded = new ArrayList<>(values.size());
+        for (T value : values) {
+            TreeItem<T> child = new TreeItem<>(value);
+            child.childrenProviderProperty.set(provider);
+            loaded.add(child);
+        }
+        batch(() -> {
+            removeLoadingPlaceholder();
+            childrenProperty.addAll(loaded);
+        });
+    }
+
+    private void childrenFetchFailed(Thread fetch, Throwable e) {
+        if (loadingThread != fetch)
+            return;
+        log.warn("failed to fetch the children of {}", this, e);
+        cancelLoading();
+        showChildrenProperty.set(false);
+    }
+
+    private void cancelLoading() {
+        if (loadState != LoadState.LOADING)
+            return;
+        loadState = LoadState.UNLOADED;
+        loadingThread.interrupt();
+        loadingThread = null;
+        removeLoadingPlaceholder();
+    }
+
+    private void removeLoadingPlaceholder() {
+        TreeItem<T> placeholder = placeholderChild;
+        placeholderChild = null;
+        if (placeholder != null)
+            childrenProperty.remove(placeholder);
+    }
 
-        markLatestVisibleDescendantDirty();
-        requestParentLayout();
+    /**
+     * the row shown under an expanded item while its {@link ChildrenProvider} is fetching
+     */
+    public boolean isLoadingPlaceholder() {
+        return loadingPlaceholder;
+    }
+
+    /**
+     * whether this item has children, or has a provider that hasn't been asked for them yet
+     */
+    public boolean mayHaveChildren() {
+        if (hasChildren() || loadState == LoadState.LOADING)
+            return true;
+        ChildrenProvider<T> provider = childrenProviderProperty.get();
+        return provider != null && loadState == LoadState.UNLOADED && provider.mayHaveChildren(valueProperty.get());
     }
 
     private void parentChangedHandler(ObservableValue<? extends TreeItem<T>> source, TreeItem<T> a, TreeItem<T> b) {
         parentProperty.get();//non lazy
+        //model items are given their parent's item when they're made, and aren't in its children list
+        if (modelItems != null)
+            return;
         if (a != b) {
+            //the old and new parent's own list changes take care of their counts and following items
             if (a != null) {
-                a.childrenProperty.remove(this);
-
-                a.markDescCntDirty();
-                a.markVisibleDescCntDirty();
-                a.markDepthDirty();
-
+                if (a.childInTransit != this) {
+                    int index = indexUnder(a);
+                    if (index >= 0)
+                        a.childrenProperty.remove(index);
+                }
+                indexInParent = -1;
             }
             if (b != null) {
-                if (!b.childrenProperty.contains(this))
+                if (b.childInTransit != this)
                     b.childrenProperty.add(this);
-
-                b.markDescCntDirty();
-                b.markVisibleDescCntDirty();
-                b.markDepthDirty();
-
             }
-            markVisibleIndexDirty();
-            markIsVisibleDirty();
-            if(indexInParent() == 0)
-                markPreviousVisibleItemDirty();
-            markNextVisibleItemDirty();
-            markNextVisibleItemExceptChildrenDirty();
-            requestParentLayout();
+            structureChanged(PARENT_CHANGED);
         }
     }
 
 
     public int indexInParent() {
+        if(modelItems != null)
+            return modelItems.model.indexInParent(modelNode);
         if(parentProperty.get()==null)
             return -1;
         else
-            return parentProperty.get().childrenProperty.indexOf(TreeItem.this);
+            return indexUnder(parentProperty.get());
+    }
+
+    /**
+     * whether this item has children, which for an item made from a {@link TreeModel} the model knows rather than
+     * childrenProperty. a loading placeholder doesn't count
+     */
+    public boolean hasChildren() {
+        if(modelItems != null)
+            return modelItems.model.firstChild(modelNode) != -1;
+        boolean placeholderListed = placeholderChild != null && placeholderChild.parentProperty.get() == this;
+        return childrenProperty.size() > (placeholderListed ? 1 : 0);
+    }
+
+    /**
+     * the child after this one in the parent, or null for the last child and the root
+     */
+    TreeItem<T> nextSibling() {
+        if(modelItems != null)
+            return modelItems.materialize(modelItems.model.nextSibling(modelNode));
+        TreeItem<T> parent = parentProperty.get();
+        if(parent == null)
+            return null;
+        int index = indexUnder(parent) + 1;
+        return index < parent.childrenProperty.size() ? parent.childrenProperty.get(index) : null;
+    }
+
+    private int indexUnder(TreeItem<T> parent) {
+        if(indexInParent < 0 || indexInParent >= parent.childIndexesValidUpTo)
+            parent.reindexChildren();
+        return indexInParent;
+    }
+
+    private void reindexChildren() {
+        for (int i = childIndexesValidUpTo; i < childrenProperty.size(); i++)
+            childrenProperty.get(i).indexInParent = i;
+        childIndexesValidUpTo = childrenProperty.size();
     }
 
     @Override
@@ -421,26 +1084,111 @@ public class TreeItem<T> {
             return super.toString();
     }
 
+    /**
+     * finds the visible item at an absolute visible index by descending from the root through each expanded item's
+     * child offsets. costs O(depth + log siblings) no matter how far the index is from this item.
+     * indexes past either end are clamped to the first or last visible item.
+     */
     public TreeItem<T> findVisibleItemAtIndex(int visibleIndex) {
-        Integer thisIndex = visibleIndexProperty.get();
-        if (thisIndex == null) {
-            //if index is null, we necessarily have a parent
-            return parentProperty.get().findVisibleItemAtIndex(visibleIndex);
-        }
-        else if (thisIndex > visibleIndex) {
-            if (parentProperty.get()!=null && parentProperty.get().visibleIndexProperty.get() > visibleIndex)
-                return parentProperty.get().findVisibleItemAtIndex(visibleIndex);
-            else
-                return previousVisibleItemProperty.get().findVisibleItemAtIndex(visibleIndex);
+        if (modelItems != null)
+            return modelItems.materialize(modelItems.model.nodeAtVisibleIndex(visibleIndex));
+
+        TreeItem<T> item = this;
+        while (item.parentProperty.get() != null)
+            item = item.parentProperty.get();
+
+        int remaining = Math.clamp(visibleIndex, 0, item.visibleDescCountProperty.get());
+        while (remaining > 0) {
+            //remaining counts rows below item, so item has to be expanded with at least that many visible descendants
+            int childIndex = item.childAtVisibleOffset(remaining - 1);
+            remaining -= 1 + item.childVisibleOffset(childIndex);
+            item = item.childrenProperty.get(childIndex);
         }
-        else if (thisIndex < visibleIndex && nextVisibleItemProperty.get() != null) {
-            return nextVisibleItemProperty.get().findVisibleItemAtIndex(visibleIndex);
+        return item;
+    }
+
+    /**
+     * the height of every visible row from the root down, using estimate for rows that were never measured
+     */
+    double visibleRowsHeight(double estimate) {
+        TreeItem<T> root = root();
+        if (modelItems != null)
+            return (root.visibleDescCountProperty.get() + 1) * estimate;
+        root.settleHeights();
+        return root.visibleMeasuredHeight + root.visibleUnmeasuredRows * estimate;
+    }
+
+    /**
+     * the average height of the visible rows that were measured, or NaN when none were
+     */
+    double measuredRowHeightAverage() {
+        TreeItem<T> root = root();
+        if (modelItems != null)
+            return Double.NaN;
+        root.settleHeights();
+        int measuredRows = root.visibleDescCountProperty.get() + 1 - root.visibleUnmeasuredRows;
+        return measuredRows == 0 ? Double.NaN : root.visibleMeasuredHeight / measuredRows;
+    }
+
+    /**
+     * how far below the root's top this item's row starts. only meaningful while the item is visible
+     */
+    double visibleOffset(double estimate) {
+        if (modelItems != null)
+            return visibleIndexProperty.get() * estimate;
+        root().settleHeights();
+        double offset = 0;
+        for (TreeItem<T> c = this, p = parentProperty.get(); p != null; c = p, p = p.parentProperty.get())
+            offset += p.ownRowHeight(estimate) + p.childHeightOffset(c.indexUnder(p), estimate);
+        return offset;
+    }
+
+    /**
+     * the visible item whose row covers the offset below the root's top, found the same way as
+     * {@link #findVisibleItemAtIndex(int)} but through row heights. offsets past either end give the first or last item.
+     */
+    TreeItem<T> findVisibleItemAtOffset(double offset, double estimate) {
+        if (modelItems != null)
+            return findVisibleItemAtIndex((int) (offset / estimate));
+
+        TreeItem<T> item = root();
+        item.settleHeights();
+        double remaining = offset;
+        while (true) {
+            remaining -= item.ownRowHeight(estimate);
+            int count = item.heightChildCount;
+            if (remaining < 0 || !item.showChildrenProperty.get() || count == 0)
+                return item;
+
+            //descend the fenwick tree for the children whose rows end at or above the offset
+            int passed = 0;
+            double measured = 0;
+            int unmeasured = 0;
+            for (int step = Integer.highestOneBit(count); step > 0; step >>= 1) {
+                int next = passed + step;
+                if (next <= count && measured + item.childMeasuredHeights[next] + (unmeasured + item.childUnmeasuredRows[next]) * estimate <= remaining) {
+                    passed = next;
+                    measured += item.childMeasuredHeights[next];
+                    unmeasured += item.childUnmeasuredRows[next];
+                }
+            }
+            if (passed == count)
+                passed = count - 1;
+            remaining -= item.childHeightOffset(passed, estimate);
+            item = item.childrenProperty.get(passed);
         }
-        else
-            return this;
+    }
+
+    private TreeItem<T> root() {
+        TreeItem<T> item = this;
+        while (item.parentProperty.get() != null)
+            item = item.parentProperty.get();
+        return item;
     }
 
     public boolean isLastChild() {
+        if (modelItems != null)
+            return modelItems.model.nextSibling(modelNode) == -1;
         return indexInParent() == parentProperty.get().childrenProperty.getSize()-1;
     }
 
@@ -0,0 +1,121 @@
+package org.yetyman.controls.treeview;
+
+import java.util.function.IntConsumer;
+
+/**
+ * a tree a {@link TreeView} can render without a {@link TreeItem} per node. nodes are int handles and -1 means none.
+ * the view only materializes tree items for the rows it lays out and the ancestors their guides hang from, and those
+ * items read their structure back from the model. see {@link ArrayTreeModel}.
+ * models are expected to be read and changed from the fx thread, the same as tree items.
+ */
+public interface TreeModel<T> {
+    int root();
+    int parent(int node);
+    int firstChild(int node);
+    int lastChild(int node);
+    int nextSibling(int node);
+    int previousSibling(int node);
+    int indexInParent(int node);
+
+    T value(int node);
+
+    boolean isExpanded(int node);
+    void setExpanded(int node, boolean expanded);
+
+    int depth(int node);
+    int descendantCount(int node);
+    /**
+     * rows taken by the node's descendants, 0 while it is collapsed
+     */
+    int visibleDescendantCount(int node);
+    /**
+     * the node's row, counting the root as row 0, or -1 while a collapsed ancestor hides it
+     */
+    int visibleIndex(int node);
+    /**
+     * the node at a row, clamped to the first and last rows
+     */
+    int nodeAtVisibleIndex(int visibleIndex);
+
+    /**
+     * the listener is told the node whose value, expansion or children changed, or -1 when it could be any of them
+     */
+    void addListener(IntConsumer changedNode);
+    void removeListener(IntConsumer changedNode);
+
+    /**
+     * tells the listener about each child added or removed, before the changed listeners hear of its parent, so
+     * something keeping its own counts per node can carry the difference instead of counting the children again.
+     * false for models that can't say, which leaves listeners the changed node alone.
+     */
+    default boolean addStructureListener(StructureListener listener) {
+        return false;
+    }
+
+    default void removeStructureListener(StructureListener listener) {
+    }
+
+    interface StructureListener {
+        /**
+         * the child is already in place under parent
+         */
+        void childAdded(int parent, int child);
+
+        /**
+         * told while the child is still in place, so its position and subtree can be read
+         */
+        void childRemoving(int parent, int child);
+    }
+
+    /**
+     * the node's child at index, or -1 past the last one
+     */
+    default int childAt(int node, int index) {
+        int c = index < 0 ? -1 : firstChild(node);
+        for (int i = 0; i < index && c != -1; i++)
+            c = nextSibling(c);
+        return c;
+    }
+
+    default boolean isVisible(int node) {
+        for (int p = parent(node); p != -1; p = parent(p))
+            if (!isExpanded(p))
+                return false;
+        return true;
+    }
+
+    default int nextVisible(int node) {
+        if (isExpanded(node) && firstChild(node) != -1)
+            return firstChild(node);
+        return nextVisibleExceptChildren(node);
+    }
+
+    default int nextVisibleExceptChildren(int node) {
+        for (int n = node; n != -1; n = parent(n))
+            if (nextSibling(n) != -1)
+                return nextSibling(n);
+        return -1;
+    }
+
+    default int previousVisible(int node) {
+        int previous = previousSibling(node);
+        return previous == -1 ? parent(node) : latestVisibleDescendant(previous);
+    }
+
+    /**
+     * the last row in the node's subtree, which is the node itself while it is collapsed
+     */
+    default int latestVisibleDescendant(int node) {
+        int n = node;
+        while (isExpanded(n) && lastChild(n) != -1)
+            n = lastChild(n);
+        return n;
+    }
+
+    default int latestLogicalDescendant(int node) {
+        int n = node;
+        while (lastChild(n) != -1)
+            n = lastChild(n);
+        return n;
+    }
+}
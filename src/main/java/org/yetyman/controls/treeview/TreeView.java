@@ -1,6 +1,9 @@
 package org.yetyman.controls.treeview;
 
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
+import javafx.beans.binding.DoubleBinding;
 import javafx.beans.property.*;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -11,6 +14,8 @@ import javafx.scene.control.ScrollBar;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Window;
 import org.apache.commons.math3.util.FastMath;
@@ -32,9 +37,14 @@ public class TreeView<T> extends Pane {
 
     private final SimpleObjectProperty<TreeItem<T>> scrollCenterItem = new SimpleObjectProperty<>(null);
     private final SimpleObjectProperty<TreeItem<T>> rootItemProperty = new SimpleObjectProperty<>(null);
+    //the items materialized for the rows of a TreeModel, when one is being shown instead of a tree of items
+    private ModelItems<T> modelItems = null;
 
     private final List<TreeCell<T>> allocatedCells = new ArrayList<>();
     private final List<TreeCaretNode<T>> allocatedCarets = new ArrayList<>();
+    //the allocated nodes that aren't bound to an item, so taking one doesn't mean searching for it
+    private final Map<Object, CellPool<T>> cellPools = new HashMap<>();
+    private final Stack<TreeCaretNode<T>> caretPool = new Stack<>();
     private final Set<TreeGuideNode<T>> usedGuides = new HashSet<>();
     private final Stack<TreeGuideNode<T>> guidePool = new Stack<>();
 
@@ -49,10 +59,69 @@ public class TreeView<T> extends Pane {
     public final SimpleDoubleProperty minDefaultCellHeight = new SimpleDoubleProperty(USE_COMPUTED_SIZE);
     public final SimpleDoubleProperty prefDefaultCellHeight = new SimpleDoubleProperty(USE_COMPUTED_SIZE);
     public final SimpleDoubleProperty maxDefaultCellHeight = new SimpleDoubleProperty(USE_COMPUTED_SIZE);
+    /**
+     * when set, every row is this tall, margins included, and cells are laid out without being measured.
+     * rows are also fixed when the min, pref and max default cell heights are all the same height.
+     */
+    public final SimpleDoubleProperty fixedCellHeight = new SimpleDoubleProperty(USE_COMPUTED_SIZE);
 
     public final SimpleDoubleProperty defaultCaretWidth = new SimpleDoubleProperty(12);
     public final SimpleDoubleProperty defaultGuideWidth = new SimpleDoubleProperty(12);
 
+    /**
+     * which numbered pseudo classes cells, carets and guides get. see {@link PseudoClassPolicy}
+     */
+    public final SimpleObjectProperty<PseudoClassPolicy> pseudoClassPolicy = new SimpleObjectProperty<>(PseudoClassPolicy.CAPPED);
+    //the last d-%d and child-%d class under CAPPED. the bundled stylesheet colors depths up to 8
+    public final SimpleIntegerProperty pseudoClassCap = new SimpleIntegerProperty(8);
+
+    /**
+     * whether guides and carets are nodes or drawn. see {@link GuideRendering}
+     */
+    public final SimpleObjectProperty<GuideRendering> guideRendering = new SimpleObjectProperty<>(GuideRendering.NODES);
+    //the color of drawn guides and carets
+    public final SimpleObjectProperty<Paint> guideStroke = new SimpleObjectProperty<>(Color.BLACK);
+    private final GuideCanvas<T> guideCanvas = new GuideCanvas<>();
+
+    /**
+     * rows kept bound and measured past the top and bottom of the view, so rows scrolling in don't have to be prepared
+     * in the frame that shows them. they're prepared in pulses with time to spare and stay hidden until they're laid.
+     * counted in {@link #overscanUnit}
+     */
+    public final SimpleDoubleProperty overscanAbove = new SimpleDoubleProperty(0);
+    public final SimpleDoubleProperty overscanBelow = new SimpleDoubleProperty(0);
+    public final SimpleObjectProperty<OverscanUnit> overscanUnit = new SimpleObjectProperty<>(OverscanUnit.ROWS);
+    //how long one pulse may spend preparing overscan rows
+    private long overscanBudgetNano = Duration.ofMillis(2).toNanos();
+
+    /**
+     * false while rows in view are showing placeholders because a layout pass ran out of its binding budget, see
+     * {@link #setBindingBudget(Duration)}. the placeholders are replaced in the pulses after, nearest the center first
+     */
+    private final ReadOnlyBooleanWrapper settableViewportSettled = new ReadOnlyBooleanWrapper(true);
+    public final ReadOnlyBooleanProperty viewportSettled = settableViewportSettled.getReadOnlyProperty();
+    //run each time the last placeholder in view is replaced
+    public final SimpleObjectProperty<Runnable> onViewportSettled = new SimpleObjectProperty<>(null);
+    //how long one layout pass may spend binding cells. 0 binds every row in the pass that shows it
+    private long bindingBudgetNano = 0;
+    //when the current pass' budget runs out. outside of layout passes there's no budget
+    private long bindingDeadlineNano = Long.MAX_VALUE;
+    private int placeholderRowCount = 0;
+
+    //work left for the pulses after a layout: replacing placeholders first, then preparing overscan rows
+    private final AnimationTimer pulseTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (getScene() == null)
+                stop();
+            else if (placeholderRowCount > 0)
+                //the next pass replaces them as its budget allows
+                requestLayout();
+            else if (prepareOverscan(System.nanoTime() + overscanBudgetNano))
+                stop();
+        }
+    };
+
     private final Rectangle layoutBoundsRect1 = new Rectangle();
     private final Rectangle layoutBoundsRect2 = new Rectangle();
     private final Rectangle layoutBoundsRect3 = new Rectangle();
@@ -76,13 +145,104 @@ public class TreeView<T> extends Pane {
 //        }
 //    };
 
+    //the distance of the wheel scroll being eased in, 0 when there is none. wheel events in the meantime retarget it
     private double scrollTweenFrom;
+    private double scrollTweenFromTimeNano;
     private double scrollTweenToTimeNano;
+    //how much of scrollTweenFrom has been scrolled so far
+    private double scrollTweenDone;
     private long tweenTransitionTimeNano;
 
+    /**
+     * keeps scrolling after a touch gesture ends, slowing down from the speed it ended at
+     */
+    public final SimpleBooleanProperty kineticScrolling = new SimpleBooleanProperty(false);
+    //px per second, decaying by FLING_DECAY per second once a gesture lets go
+    private double flingVelocity;
+    //how fast the gesture in progress is moving, what it flings at if it lets go now
+    private double gestureVelocity;
+    private static final double FLING_DECAY = 4;
+    private static final double FLING_MIN_VELOCITY = 20;
+    private boolean scrollGesture = false;
+    private long lastGestureEventNano;
+    //gesture distance that came in since the last frame
+    private double pendingScrollPx;
+    private long lastScrollFrameNano;
+
+    //moves the view once per pulse for gestures, eased wheel scrolls and flings
+    private final AnimationTimer scrollTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (getScene() == null || scrollCenterItem.get() == null || scrollCenterItem.get().currentCellProperty.get() == null) {
+                stopScrollAnimation();
+                return;
+            }
+            double px = pendingScrollPx;
+            pendingScrollPx = 0;
+
+            if (scrollTweenFrom != 0) {
+                double progress = FastMath.min(1, (now - scrollTweenFromTimeNano) / FastMath.max(1, scrollTweenToTimeNano - scrollTweenFromTimeNano));
+                double eased = 1 - FastMath.pow(1 - progress, 3);
+                px += scrollTweenFrom * eased - scrollTweenDone;
+                scrollTweenDone = scrollTweenFrom * eased;
+                if (progress >= 1) {
+                    scrollTweenFrom = 0;
+                    scrollTweenDone = 0;
+                }
+            }
+            if (flingVelocity != 0) {
+                double seconds = (now - lastScrollFrameNano) / 1e9;
+                px += flingVelocity * seconds;
+                flingVelocity *= FastMath.exp(-FLING_DECAY * seconds);
+                if (FastMath.abs(flingVelocity) < FLING_MIN_VELOCITY)
+                    flingVelocity = 0;
+            }
+            lastScrollFrameNano = now;
+
+            //running into either end of the rows ends whatever was moving toward it
+            if (px != 0 && !scrollPxMoved(px)) {
+                scrollTweenFrom = 0;
+                scrollTweenDone = 0;
+                flingVelocity = 0;
+            }
+            if (scrollTweenFrom == 0 && flingVelocity == 0)
+                stop();
+        }
+    };
+
     private Function<TreeView<T>, TreeCell<T>> cellFactory = this::defaultCellFactory;
     private Function<TreeView<T>, TreeCaretNode<T>> caretFactory = this::defaultCaretFactory;
     private Function<TreeView<T>, TreeGuideNode<T>> guideFactory = this::defaultGuideFactory;
+    private Function<TreeView<T>, TreeCell<T>> loadingCellFactory = this::defaultLoadingCellFactory;
+    private Function<TreeView<T>, TreeCell<T>> placeholderCellFactory = this::defaultPlaceholderCellFactory;
+    private Function<TreeItem<T>, Object> cellType = null;
+    private final Map<Object, Function<TreeView<T>, TreeCell<T>>> typedCellFactories = new HashMap<>();
+
+    /**
+     * the cell type of loading placeholder rows, whose cells come from the loading cell factory
+     */
+    public static final Object LOADING_CELL_TYPE = new Object() {
+        @Override
+        public String toString() {
+            return "loading";
+        }
+    };
+
+    /**
+     * the cell type of rows a layout pass had no binding budget left for, whose cells come from the placeholder cell
+     * factory. see {@link #setBindingBudget(Duration)}
+     */
+    public static final Object PLACEHOLDER_CELL_TYPE = new Object() {
+        @Override
+        public String toString() {
+            return "placeholder";
+        }
+    };
+
+    /**
+     * given to the root item, so the tree's children are fetched as it is expanded. see {@link ChildrenProvider}
+     */
+    public final SimpleObjectProperty<ChildrenProvider<T>> childrenProvider = new SimpleObjectProperty<>(null);
 
     /**
      * This enables a feature for hovered cells to be shown at full size regardless of the tree view's clip.
@@ -94,6 +254,7 @@ public class TreeView<T> extends Pane {
     private final BooleanProperty expandHoveredCell = new SimpleBooleanProperty(true);
     private final ObjectProperty<TreeCell<T>> hoveredCell = new SimpleObjectProperty<>(null);
     private TreeCell<T> hoverCopyCell;
+    private Object hoverCopyCellType = null;
     private final BooleanProperty hoveredCellHovered = new SimpleBooleanProperty(false);
 
     //#region reproduce internals
@@ -334,13 +495,30 @@ public class TreeView<T> extends Pane {
     public void setFillWidth(boolean value) { fillWidth.set(value); }
     public boolean isFillWidth() { return fillWidth == null || fillWidth.get(); }
 
+    /**
+     * whether the scroll bar counts rows or pixels. see {@link AlignmentMethod}
+     */
+    public final SimpleObjectProperty<AlignmentMethod> alignmentMethod = new SimpleObjectProperty<>(AlignmentMethod.INDEX);
+
     public ScrollBar verticalScrollBar = new ScrollBar();
+    //both also move without the visible items changing, when cells move or rows open elsewhere. each layout invalidates them
+    private final DoubleBinding scrollBarVisibleAmount;
+    private final DoubleBinding scrollBarMax;
+    //the scroll bar position asked for since the last pass, NaN when there is none. however many come in a pulse, the
+    //next pass only moves to the last
+    private double pendingScrollIndex = Double.NaN;
     public final SimpleDoubleProperty verticalScrollIndex = new SimpleDoubleProperty(0) {
         @Override
         public double get() {
+            if(!Double.isNaN(pendingScrollIndex))
+                return pendingScrollIndex;
             double d = 0;
-            if(scrollCenterItem.get() != null && scrollCenterItem.get().currentCellProperty.get()!=null)
-                d = scrollCenterItem.get().visibleIndexProperty.get() + centerItemScrollOffset.get()/scrollCenterItem.get().currentCellProperty.get().getCachedHeight();
+            if(scrollCenterItem.get() != null && scrollCenterItem.get().currentCellProperty.get()!=null) {
+                if(alignmentMethod.get() == AlignmentMethod.LENGTH)
+                    d = scrollCenterPx();
+                else
+                    d = FastMath.max(0, scrollCenterItem.get().visibleIndexProperty.get() - centerItemScrollOffset.get()/scrollCenterItem.get().currentCellProperty.get().getCachedHeight());
+            }
             if(super.get() != d)
                 super.set(d);
             return d;
@@ -348,25 +526,43 @@ public class TreeView<T> extends Pane {
 
         @Override
         public void set(double newValue) {
-            newValue/=verticalScrollBar.getMax();
-            newValue*=(verticalScrollBar.getMax()-1);
-            newValue+=.5;
-            int index = (int) newValue;
-            double offset = (newValue)%1d-.5;
-
             if(scrollCenterItem.get() != null) {
-                scrollCenterItem.set(scrollCenterItem.get().findVisibleItemAtIndex(index));
-                TreeCell<T> cell = getTreeCell(scrollCenterItem.get());
-                sizeSingleCell(cell);
-//                log.info("{}i, {}offset", scrollCenterItem.get().visibleIndexProperty.get(), offset);
-                centerItemScrollOffset.set(-offset * scrollCenterItem.get().currentCellProperty.get().getCachedHeight());
+                pendingScrollIndex = newValue;
+                requestLayout();
             }
-
             super.set(newValue);
             super.get();
         }
     };
 
+    /**
+     * moves to the scroll bar position asked for since the last pass
+     */
+    private void resolvePendingScroll() {
+        double value = pendingScrollIndex;
+        if(Double.isNaN(value) || scrollCenterItem.get() == null)
+            return;
+        pendingScrollIndex = Double.NaN;
+
+        if(alignmentMethod.get() == AlignmentMethod.LENGTH) {
+            scrollToPx(value);
+        } else {
+            value/=verticalScrollBar.getMax();
+            value*=(verticalScrollBar.getMax()-1);
+            value+=.5;
+            int index = (int) value;
+            double offset = (value)%1d-.5;
+
+            scrollCenterItem.set(rootItemProperty.get().findVisibleItemAtIndex(index));
+            TreeCell<T> cell = getTreeCell(scrollCenterItem.get());
+            sizeSingleCell(cell);
+//            log.info("{}i, {}offset", scrollCenterItem.get().visibleIndexProperty.get(), offset);
+            centerItemScrollOffset.set(-offset * scrollCenterItem.get().currentCellProperty.get().getCachedHeight());
+        }
+        //the scroll bar shows where the view landed, which rows' heights can put a little off what was asked for
+        verticalScrollIndex.get();
+    }
+
 
     public TreeView(){
         getStyleClass().add("-j-tree-view");
@@ -382,14 +578,23 @@ public class TreeView<T> extends Pane {
         verticalScrollBar.valueProperty().bindBidirectional(verticalScrollIndex);
 
         var rootWhenExists = rootItemProperty.when(rootItemProperty.isNotNull());
+        childrenProvider.addListener((s, a, b)->{
+            if(rootItemProperty.get() != null)
+                rootItemProperty.get().childrenProviderProperty.set(b);
+        });
 
-        verticalScrollBar.visibleAmountProperty().bind(Bindings.createDoubleBinding(this::calculateVScrollBarVisibleAmount, visibleItems));
-        verticalScrollBar.maxProperty().bind(Bindings.createDoubleBinding(()-> calculateVScrollBarMax(rootWhenExists), rootWhenExists, visibleItems));
+        scrollBarVisibleAmount = Bindings.createDoubleBinding(this::calculateVScrollBarVisibleAmount, visibleItems, alignmentMethod);
+        scrollBarMax = Bindings.createDoubleBinding(()-> calculateVScrollBarMax(rootWhenExists), rootWhenExists, visibleItems, alignmentMethod);
+        verticalScrollBar.visibleAmountProperty().bind(scrollBarVisibleAmount);
+        verticalScrollBar.maxProperty().bind(scrollBarMax);
 
         cellParent.setManaged(false);
 //        caretParent.setManaged(false);
         guideParent.setManaged(false);
         guideParent.setMouseTransparent(true);
+        guideCanvas.setManaged(false);
+        guideCanvas.setVisible(false);
+        guideParent.getChildren().add(guideCanvas);
         getChildren().add(guideParent);
         getChildren().add(cellParent);
 //        getChildren().add(caretParent);
@@ -399,7 +604,10 @@ public class TreeView<T> extends Pane {
 
         AtomicBoolean nestingProtect = new AtomicBoolean(false);
         addEventFilter(ScrollEvent.ANY, evt->{
-            if(!verticalScrollBar.contains(verticalScrollBar.sceneToLocal(evt.getSceneX(), evt.getSceneY())) && !nestingProtect.get()) {
+            if(!verticalScrollBar.contains(verticalScrollBar.sceneToLocal(evt.getSceneX(), evt.getSceneY())) && animatesScrolling()) {
+                animateScroll(evt);
+                evt.consume();
+            } else if(!verticalScrollBar.contains(verticalScrollBar.sceneToLocal(evt.getSceneX(), evt.getSceneY())) && !nestingProtect.get()) {
                 nestingProtect.set(true);
                 verticalScrollBar.fireEvent(evt);
                 nestingProtect.set(false);
@@ -412,12 +620,64 @@ public class TreeView<T> extends Pane {
             guideParent.setClip(layoutBoundsRect3);
         }
 
-        scrollCenterItem.addListener((s,a,b)->{ scrollCenterItem.get(); if(!Objects.equals(a, b)) requestLayout(); });
-        centerItemScrollOffset.addListener((s,a,b)->{ centerItemScrollOffset.get(); if(!Objects.equals(a, b)) requestLayout(); });
+        InvalidationListener rowHeightChanged = o -> {
+            //cached heights could have come from measuring or from the old fixed height
+            for (TreeCell<T> cell : allocatedCells)
+                cell.setCachedConstraints(null);
+            requestLayout();
+        };
+        fixedCellHeight.addListener(rowHeightChanged);
+        minDefaultCellHeight.addListener(rowHeightChanged);
+        prefDefaultCellHeight.addListener(rowHeightChanged);
+        maxDefaultCellHeight.addListener(rowHeightChanged);
+
+        InvalidationListener pseudoClassesChanged = o -> {
+            for (TreeCell<T> cell : allocatedCells)
+                applyPseudoClassPolicy(cell);
+            for (TreeCaretNode<T> caret : allocatedCarets)
+                applyPseudoClassPolicy(caret);
+            for (TreeGuideNode<T> guide : usedGuides)
+                applyPseudoClassPolicy(guide);
+            for (TreeGuideNode<T> guide : guidePool)
+                applyPseudoClassPolicy(guide);
+            if (hoverCopyCell != null)
+                applyPseudoClassPolicy(hoverCopyCell);
+            requestLayout();
+        };
+        pseudoClassPolicy.addListener(pseudoClassesChanged);
+        pseudoClassCap.addListener(pseudoClassesChanged);
+
+        guideRendering.addListener(o -> requestLayout());
+        guideStroke.addListener(o -> requestLayout());
+        overscanAbove.addListener(o -> requestLayout());
+        overscanBelow.addListener(o -> requestLayout());
+        overscanUnit.addListener(o -> requestLayout());
+        //the guide layer doesn't take the mouse, so clicks on drawn carets come to the view
+        addEventHandler(MouseEvent.MOUSE_CLICKED, me -> {
+            if (guideRendering.get() != GuideRendering.CANVAS_WITH_CARETS || me.getTarget() != this)
+                return;
+            Point2D at = guideParent.parentToLocal(me.getX(), me.getY());
+            int row = guideCanvas.caretRowAt(laidRows, laidRowsOffsetAtLayout, defaultCaretWidth.get(), at.getX(), at.getY());
+            if (row >= 0) {
+                TreeItem<T> item = laidRows.item(row);
+                item.showChildrenProperty.set(!item.showChildrenProperty.get());
+            }
+        });
+
+        alignmentMethod.addListener((s,a,b)->{
+            //the scroll bar's value changes units, so give it the current position in the new ones
+            verticalScrollIndex.get();
+            requestLayout();
+        });
+
+        scrollCenterItem.addListener((s,a,b)->{ scrollCenterItem.get(); if(!Objects.equals(a, b) && !translatingLaidRows) requestLayout(); });
+        centerItemScrollOffset.addListener((s,a,b)->{ centerItemScrollOffset.get(); if(!Objects.equals(a, b) && !translatingLaidRows) requestLayout(); });
     }
 
-    private static <T> double calculateVScrollBarMax(ObservableValue<TreeItem<T>> rootWhenExists) {
-        if(rootWhenExists.getValue() != null)
+    private double calculateVScrollBarMax(ObservableValue<TreeItem<T>> rootWhenExists) {
+        if(rootWhenExists.getValue() != null && alignmentMethod.get() == AlignmentMethod.LENGTH)
+            return rowsHeight();
+        else if(rootWhenExists.getValue() != null)
 //                return rootWhenExists.getValue().visibleDescCountProperty.getValue()+1;
             return (double) rootWhenExists.getValue().visibleDescCountProperty.getValue() + 1d;
 //                return rootWhenExists.getValue().visibleDescCountProperty.getValue()-visibleItems.getSize()+1;
@@ -427,16 +687,22 @@ public class TreeView<T> extends Pane {
 
     private double calculateVScrollBarVisibleAmount() {
         double size = visibleItems.size();
+        double top = snapSpaceY(getInsets().getTop());
+        double bottom = snapSpaceY(getInsets().getBottom());
+        if(alignmentMethod.get() == AlignmentMethod.LENGTH)
+            return FastMath.max(getHeight() - top - bottom, 0);
+        if(!Double.isNaN(fixedRowHeight()))
+            return FastMath.max(getHeight() - top - bottom, 0) / fixedRowHeight();
         if(visibleItems.isEmpty())
             return 1;
         TreeItem<T> first = visibleItems.getFirst();
         TreeItem<T> last = visibleItems.getLast();
-        double top = snapSpaceY(getInsets().getTop());
-        double bottom = snapSpaceY(getInsets().getBottom());
         double contentTop = top;
         double contentBot = getHeight()-bottom;
-        size -= (contentTop - first.currentCellProperty.get().getBoundsInParent().getMinY())/first.currentCellProperty.get().getCachedHeight();
-        size -= (last.currentCellProperty.get().getBoundsInParent().getMaxY() - contentBot) /last.currentCellProperty.get().getCachedHeight();
+        //cell bounds are within cellParent, which a scroll may have translated since the last pass
+        double translate = cellParent.getTranslateY();
+        size -= (contentTop - first.currentCellProperty.get().getBoundsInParent().getMinY() - translate)/first.currentCellProperty.get().getCachedHeight();
+        size -= (last.currentCellProperty.get().getBoundsInParent().getMaxY() + translate - contentBot) /last.currentCellProperty.get().getCachedHeight();
         return size;
     }
 
@@ -452,10 +718,86 @@ public class TreeView<T> extends Pane {
         double availableWidth = getAvailableWidth(isFillWidth(), contentWidth, depthIndent);
         double scrollWidth = verticalScrollBar.isVisible() ? verticalScrollBar.getWidth() : 0;
         Insets margin = cell.getMargins();
-        if (cell.getCachedConstraints() == null || !cell.getCachedConstraints().match(cell.getTreeItem(), false, availableWidth-scrollWidth, isFillWidth(), margin))
+        if (cell.takeContentApplied() || cell.getCachedConstraints() == null || !cell.getCachedConstraints().match(cell.getTreeItem(), false, availableWidth-scrollWidth, isFillWidth(), margin))
             updateCachedCellConstraints(cell, availableWidth-scrollWidth, false, isFillWidth());
     }
 
+    /**
+     * the height used for rows that haven't been measured yet, the average of those that have
+     */
+    private double estimatedRowHeight() {
+        if(!Double.isNaN(fixedRowHeight()))
+            return fixedRowHeight();
+        double average = rootItemProperty.get() == null ? Double.NaN : rootItemProperty.get().measuredRowHeightAverage();
+        if(!Double.isNaN(average) && average > 0)
+            return average;
+        return prefDefaultCellHeight.get() > 0 ? prefDefaultCellHeight.get() : 24;
+    }
+
+    /**
+     * the height every row takes, or NaN when rows are measured one by one
+     */
+    private double fixedRowHeight() {
+        if(fixedCellHeight.get() > 0)
+            return fixedCellHeight.get();
+        double pref = prefDefaultCellHeight.get();
+        if(pref > 0 && minDefaultCellHeight.get() == pref && maxDefaultCellHeight.get() == pref)
+            return pref;
+        return Double.NaN;
+    }
+
+    //the height of all the visible rows, where each row starts, and which row covers a point. fixed rows are a product
+    private double rowsHeight() {
+        double fixed = fixedRowHeight();
+        if(!Double.isNaN(fixed))
+            return (rootItemProperty.get().visibleDescCountProperty.get() + 1) * fixed;
+        return rootItemProperty.get().visibleRowsHeight(estimatedRowHeight());
+    }
+    private double rowOffset(TreeItem<T> item) {
+        double fixed = fixedRowHeight();
+        if(!Double.isNaN(fixed))
+            return item.visibleIndexProperty.get() * fixed;
+        return item.visibleOffset(estimatedRowHeight());
+    }
+    private TreeItem<T> itemAtOffset(double px) {
+        double fixed = fixedRowHeight();
+        if(!Double.isNaN(fixed))
+            return rootItemProperty.get().findVisibleItemAtIndex((int) (px / fixed));
+        return rootItemProperty.get().findVisibleItemAtOffset(px, estimatedRowHeight());
+    }
+
+    private double rowPitch(TreeCell<T> cell) {
+        return cell.getCachedHeight() + getMarginHeight(cell);
+    }
+
+    /**
+     * how far below the top of all the rows the point on the scroll center item at the scroll anchor is.
+     * the anchor is as far down the view as this is down the rows, so the first row's top reaches the top of the view
+     * and the last row's bottom reaches the bottom
+     */
+    private double scrollCenterPx() {
+        TreeItem<T> centerItem = scrollCenterItem.get();
+        TreeCell<T> cell = centerItem.currentCellProperty.get();
+        double pitch = cell == null ? estimatedRowHeight() : rowPitch(cell);
+        return rowOffset(centerItem) + pitch/2 - centerItemScrollOffset.get();
+    }
+
+    /**
+     * scrolls so the point px below the top of all the rows sits at the scroll anchor. rows between here and there
+     * that were never measured are estimated, so far jumps land close and get exact as the rows are seen.
+     */
+    public void scrollToPx(double px) {
+        if(rootItemProperty.get() == null || scrollCenterItem.get() == null)
+            return;
+        double clamped = Math.clamp(px, 0, rowsHeight());
+        TreeItem<T> item = itemAtOffset(clamped);
+        double top = rowOffset(item);
+
+        double pitch = rowPitch(sizedTreeCell(item));
+        scrollCenterItem.set(item);
+        centerItemScrollOffset.set(Math.clamp(top + pitch/2 - clamped, -pitch/2, pitch/2));
+    }
+
     public void scrollUp() {
         scrollPx(scrollCenterItem.get().currentCellProperty.get().getCachedHeight());
     }
@@ -463,18 +805,70 @@ public class TreeView<T> extends Pane {
         scrollPx(-scrollCenterItem.get().currentCellProperty.get().getCachedHeight());
     }
     public void scrollPx(double scrollDistancePx) {
+        resolvePendingScroll();
         double scrollOffsetPx = centerItemScrollOffset.get() + scrollDistancePx;
-        double maxOffsetPx = scrollCenterItem.get().currentCellProperty.get().getCachedHeight()/2;
+        double maxOffsetPx = halfRowHeight(scrollCenterItem.get().currentCellProperty.get());
 
         ItemAndOffset<T> newItemAndOffset = calculateCenterItemChange(scrollOffsetPx, maxOffsetPx);
 
-        calculateTweenFromLocation(scrollDistancePx, newItemAndOffset.offset, maxOffsetPx);
+        //when the new center row is already laid out the rows can be moved instead of laid out again
+        boolean laid = isLaidOut(newItemAndOffset.willBe);
+        translatingLaidRows = laid;
         scrollCenterItem.set(newItemAndOffset.willBe);
         centerItemScrollOffset.set(newItemAndOffset.offset);
+        translatingLaidRows = false;
 
         verticalScrollIndex.get();
         updateModel();
-        requestLayout();
+        if(!laid || !translateLaidRows())
+            requestLayout();
+    }
+
+    private boolean isLaidOut(TreeItem<T> item) {
+        if(isNeedsLayout() || laidRows.isEmpty())
+            return false;
+        int row = item.visibleIndexProperty.get() - laidRows.item(0).visibleIndexProperty.get();
+        return row >= 0 && row < laidRows.size() && laidRows.item(row) == item;
+    }
+
+    /**
+     * moves the rows of the last pass to where a new pass would put them, measured at the center row.
+     * false when the moved rows would no longer cover the area inside the insets, leaving it to a layout pass. that pass
+     * places every row again, but rows still bound keep their cells, so only the rows coming into view are bound
+     */
+    private boolean translateLaidRows() {
+        TreeItem<T> centerItem = scrollCenterItem.get();
+        int row = centerItem.visibleIndexProperty.get() - laidRows.item(0).visibleIndexProperty.get();
+        int last = laidRows.size() - 1;
+
+        Insets insets = getInsets();
+        double height = getHeight();
+        double topPad = snapSpaceY(insets.getTop());
+        double bottomPad = snapSpaceY(insets.getBottom());
+
+        double middleY = centerMiddleY(centerItem, topPad, height - topPad - bottomPad);
+        double top = centerRowTop(laidRows.cell(row), middleY, topPad, height, bottomPad) + laidRowsOffset();
+        double translate = top - laidRows.y(row) - laidRowsOffsetAtLayout;
+
+        if(laidRows.y(0) + laidRowsOffsetAtLayout + translate > topPad
+                || laidRows.y(last) + laidRows.height(last) + laidRowsOffsetAtLayout + translate < height - bottomPad)
+            return false;
+
+        setLaidRowsTranslate(translate);
+        scrollBarVisibleAmount.invalidate();
+        return true;
+    }
+
+    /**
+     * the clips move the other way so they stay over the view
+     */
+    private void setLaidRowsTranslate(double translate) {
+        cellParent.setTranslateY(translate);
+        guideParent.setTranslateY(translate);
+        layoutBoundsRect1.setY(clipTop - translate);
+        layoutBoundsRect3.setY(clipTop - translate);
+        if(hoverCopyCell != null)
+            hoverCopyCell.setTranslateY(translate);
     }
 
     private record ItemAndOffset<X>(TreeItem<X> willBe, double offset) {}
@@ -491,27 +885,31 @@ public class TreeView<T> extends Pane {
         //TODO: this is where we could add logic to prevent scrolling past the edges.
         // We can calculate the min/max item and offset to line up with the ends of what's visible
 
-        if(scrollOffsetPx > maxOffsetPx && nextScrollCenter.previousVisibleItemProperty.get() != null) {
-            nextScrollCenter = nextScrollCenter.previousVisibleItemProperty.get();
-            while (scrollOffsetPx > maxOffsetPx && nextScrollCenter.previousVisibleItemProperty.get() != null) {
-                nextScrollCenter = nextScrollCenter.previousVisibleItemProperty.get();
-                if(nextScrollCenter.currentCellProperty.get() == null)
-                    nextScrollCenter.settableCellProperty.set(getTreeCell(nextScrollCenter));
-                double deviation = maxOffsetPx + nextScrollCenter.currentCellProperty.get().getCachedHeight() / 2;
-                maxOffsetPx = nextScrollCenter.currentCellProperty.get().getCachedHeight();
-                scrollOffsetPx -= deviation;
+        double fixed = fixedRowHeight();
+        if(!Double.isNaN(fixed)) {
+            //every row is the same height, so count the rows passed instead of stepping through them
+            int index = nextScrollCenter.visibleIndexProperty.get();
+            int lastIndex = rootItemProperty.get().visibleDescCountProperty.get();
+            int target = Math.clamp(index - (long) FastMath.floor(scrollOffsetPx / fixed + .5), 0, lastIndex);
+            if(target != index) {
+                nextScrollCenter = nextScrollCenter.findVisibleItemAtIndex(target);
+                sizedTreeCell(nextScrollCenter);
+                scrollOffsetPx -= (index - target) * fixed;
             }
         }
-        else if(scrollOffsetPx < -maxOffsetPx && nextScrollCenter.nextVisibleItemProperty.get() != null) {
+
+        //the offset is from the center of nextScrollCenter, so stepping to a neighbour moves it by half of each row
+        while (scrollOffsetPx > maxOffsetPx && nextScrollCenter.previousVisibleItemProperty.get() != null) {
+            nextScrollCenter = nextScrollCenter.previousVisibleItemProperty.get();
+            double halfHeight = halfRowHeight(sizedTreeCell(nextScrollCenter));
+            scrollOffsetPx -= maxOffsetPx + halfHeight;
+            maxOffsetPx = halfHeight;
+        }
+        while (scrollOffsetPx < -maxOffsetPx && nextScrollCenter.nextVisibleItemProperty.get() != null) {
             nextScrollCenter = nextScrollCenter.nextVisibleItemProperty.get();
-            while (scrollOffsetPx < -maxOffsetPx && nextScrollCenter.nextVisibleItemProperty.get() != null) {
-                nextScrollCenter = nextScrollCenter.nextVisibleItemProperty.get();
-                if(nextScrollCenter.currentCellProperty.get() == null)
-                    nextScrollCenter.settableCellProperty.set(getTreeCell(nextScrollCenter));
-                double deviation = maxOffsetPx + nextScrollCenter.currentCellProperty.get().getCachedHeight() / 2;
-                maxOffsetPx = nextScrollCenter.currentCellProperty.get().getCachedHeight();
-                scrollOffsetPx += deviation;
-            }
+            double halfHeight = halfRowHeight(sizedTreeCell(nextScrollCenter));
+            scrollOffsetPx += maxOffsetPx + halfHeight;
+            maxOffsetPx = halfHeight;
         }
 
         //if we are at the end of the list
@@ -523,18 +921,93 @@ public class TreeView<T> extends Pane {
         return new ItemAndOffset<T>(nextScrollCenter, scrollOffsetPx);
     }
 
-    private void calculateTweenFromLocation(double scrollDistance, double scrollOffset, double maxOffset) {
+    //rows are measured with their margins when scrolling by length, the same as their offsets are summed
+    private double halfRowHeight(TreeCell<T> cell) {
+        if(!Double.isNaN(fixedRowHeight()))
+            return fixedRowHeight() / 2;
+        return (alignmentMethod.get() == AlignmentMethod.LENGTH ? rowPitch(cell) : cell.getCachedHeight()) / 2;
+    }
 
-        if (scrollOffset > maxOffset || scrollOffset < -maxOffset) {
-            //fake scroll at end of list???
-            double fakeOffset = FastMath.max(-maxOffset, FastMath.min(maxOffset, scrollOffset/2));
-            scrollTweenFrom = fakeOffset;
-            scrollTweenToTimeNano = System.nanoTime() + tweenTransitionTimeNano;
-        } else {
-            //normal scroll
-            scrollTweenFrom = scrollOffset - scrollDistance;
-            scrollTweenToTimeNano = System.nanoTime() + tweenTransitionTimeNano;
+    private TreeCell<T> sizedTreeCell(TreeItem<T> item) {
+        TreeCell<T> cell = getTreeCell(item);
+        sizeSingleCell(cell);
+        return cell;
+    }
+
+    /**
+     * scroll events are animated instead of passed to the scroll bar when wheel scrolls are eased or gestures fling
+     */
+    private boolean animatesScrolling() {
+        return tweenTransitionTimeNano > 0 || kineticScrolling.get();
+    }
+
+    /**
+     * events only move the animation's target, so however many come in a pulse the view moves once
+     */
+    private void animateScroll(ScrollEvent evt) {
+        long now = System.nanoTime();
+        if (evt.getEventType() == ScrollEvent.SCROLL_STARTED) {
+            scrollGesture = true;
+            flingVelocity = 0;
+            gestureVelocity = 0;
+            lastGestureEventNano = now;
+            return;
+        }
+        if (evt.getEventType() == ScrollEvent.SCROLL_FINISHED) {
+            scrollGesture = false;
+            //a gesture that stopped before letting go doesn't fling
+            if (kineticScrolling.get() && FastMath.abs(gestureVelocity) >= FLING_MIN_VELOCITY && now - lastGestureEventNano < 100_000_000L) {
+                flingVelocity = gestureVelocity;
+                startScrollAnimation();
+            }
+            return;
         }
+        if (evt.getEventType() != ScrollEvent.SCROLL)
+            return;
+        //the platform's own inertia is replaced by the fling
+        if (evt.isInertia() && kineticScrolling.get())
+            return;
+
+        double px = evt.getDeltaY();
+        if (scrollGesture || evt.getTouchCount() > 0 || evt.isInertia()) {
+            //gestures follow the fingers, their speed is kept for the fling
+            double seconds = FastMath.max(now - lastGestureEventNano, 1_000_000L) / 1e9;
+            gestureVelocity = scrollGesture ? gestureVelocity * .5 + px / seconds * .5 : 0;
+            lastGestureEventNano = now;
+            pendingScrollPx += px;
+        } else if (tweenTransitionTimeNano > 0) {
+            scrollTweenFrom = scrollTweenFrom - scrollTweenDone + px;
+            scrollTweenDone = 0;
+            scrollTweenFromTimeNano = now;
+            scrollTweenToTimeNano = now + tweenTransitionTimeNano;
+        } else
+            pendingScrollPx += px;
+        startScrollAnimation();
+    }
+
+    private void startScrollAnimation() {
+        lastScrollFrameNano = System.nanoTime();
+        scrollTimer.start();
+    }
+
+    private void stopScrollAnimation() {
+        scrollTimer.stop();
+        scrollTweenFrom = 0;
+        scrollTweenDone = 0;
+        scrollTweenToTimeNano = System.nanoTime();
+        flingVelocity = 0;
+        gestureVelocity = 0;
+        pendingScrollPx = 0;
+    }
+
+    /**
+     * false when the view was already at the end of the rows it would scroll toward
+     */
+    private boolean scrollPxMoved(double px) {
+        TreeItem<T> item = scrollCenterItem.get();
+        double offset = centerItemScrollOffset.get();
+        scrollPx(px);
+        return scrollCenterItem.get() != item || centerItemScrollOffset.get() != offset;
     }
 
     private void updateModel() {
@@ -546,7 +1019,16 @@ public class TreeView<T> extends Pane {
         Insets margin = child.getMargins();
 
         double height;
-        if (minimum) {
+        double fixed = fixedRowHeight();
+        if (!Double.isNaN(fixed)) {
+            height = FastMath.max(fixed - getMarginHeight(child), 0);
+        } else if (child.getPool().cellType == PLACEHOLDER_CELL_TYPE) {
+            //a placeholder takes the height the row was last measured at, or the estimate, and isn't measured itself.
+            //a model's items are let go when they scroll away, so theirs is the estimate
+            height = FastMath.max(child.getTreeItem().ownRowHeight(estimatedRowHeight()) - getMarginHeight(child), 0);
+            child.setCachedConstraints(new CellLayoutConstraints(child.getTreeItem(), height, minimum, widthAvailable, isFillWidth, margin));
+            return;
+        } else if (minimum) {
             if (widthAvailable != USE_COMPUTED_SIZE && isFillWidth) {
                 height = computeChildMinAreaHeight(child, -1, margin, widthAvailable);
             } else {
@@ -561,32 +1043,9 @@ public class TreeView<T> extends Pane {
         }
 
         child.setCachedConstraints(new CellLayoutConstraints(child.getTreeItem(), height, minimum, widthAvailable, isFillWidth, margin));
-    }
-
-    private record CellLayoutSettings<T>(TreeCell<T> cell, TreeItem<T> item, double areaX, double areaY,
-                                      double areaWidth, double areaHeight,
-                                      double areaBaselineOffset,
-                                      Insets margin, boolean fillWidth, boolean fillHeight,
-                                      HPos halignment, VPos valignment){
-        @Override
-        public String toString() {
-            return cell.toString();
-        }
-    }
-    private record CaretLayoutSettings<T>(TreeCaretNode<T> caret, double areaX, double areaY,
-                                       double areaWidth, double areaHeight,
-                                       double areaBaselineOffset,
-                                       Insets margin, boolean fillWidth, boolean fillHeight,
-                                       HPos halignment, VPos valignment){}
-    private record GuideLayoutSettings<T>(TreeGuideNode<T> guide, double areaX, double areaY,
-                                       double areaWidth, double areaHeight,
-                                       double areaBaselineOffset,
-                                       Insets margin, boolean fillWidth, boolean fillHeight,
-                                       HPos halignment, VPos valignment){
-        @Override
-        public String toString() {
-            return guide.toString();
-        }
+        //kept whatever the alignment, for placeholders and the estimate
+        if(Double.isNaN(fixed))
+            child.getTreeItem().setMeasuredRowHeight(rowPitch(child));
     }
 
     public int visualDistanceFrom(TreeItem<T> from, TreeItem<T> to) {
@@ -600,28 +1059,62 @@ public class TreeView<T> extends Pane {
 
     private int previousScrollCenterItemVisibleIndex = -1;
 
+    //set while a scroll moves the laid rows itself, so the scroll properties changing doesn't ask for a layout pass
+    private boolean translatingLaidRows = false;
+    //the offset the last pass added to every row, which a translate is measured from
+    private double laidRowsOffsetAtLayout = 0;
+    //where the clips start, the top inset as of the last pass
+    private double clipTop = 0;
+
+    //region reused by every layout pass, so scrolling doesn't allocate
+    private final LaidRows<T> laidRows = new LaidRows<>();
+    //guides by row and depth, a row being a visible index less guideGridStart. kept from pass to pass so rows that stay
+    //laid keep their guides, with the next pass' grid built in the spare arrays and swapped in
+    @SuppressWarnings("unchecked")
+    private TreeGuideNode<T>[] guideGrid = (TreeGuideNode<T>[]) new TreeGuideNode<?>[0];
+    @SuppressWarnings("unchecked")
+    private TreeGuideNode<T>[] nextGuideGrid = (TreeGuideNode<T>[]) new TreeGuideNode<?>[0];
+    @SuppressWarnings("unchecked")
+    private TreeItem<T>[] guideGridRows = (TreeItem<T>[]) new TreeItem<?>[0];
+    @SuppressWarnings("unchecked")
+    private TreeItem<T>[] nextGuideGridRows = (TreeItem<T>[]) new TreeItem<?>[0];
+    private int guideGridStart = 0;
+    private int guideGridRowCount = 0;
+    private int guideGridColumns = 0;
+    //the root's structure changes when the grid was built. when this view's tree changes since, every row's guides are
+    //checked again, changes to other trees leave them be
+    private long guideGridEpoch = -1;
+    private final List<TreeItem<T>> laidItems = new ArrayList<>();
+    private int layoutPass = 0;
+    //endregion
+
     @Override
     protected void layoutChildren() {
         if(scrollCenterItem.get() == null)
             return;
+        resolvePendingScroll();
 
         //reassess scroll center item when collapsed parents have changed it.
         if(!scrollCenterItem.get().isVisibleProperty.get())
         {
-            TreeItem<T> newScrollCenter = scrollCenterItem.get().findVisibleItemAtIndex(previousScrollCenterItemVisibleIndex);
+            TreeItem<T> newScrollCenter = rootItemProperty.get().findVisibleItemAtIndex(previousScrollCenterItemVisibleIndex);
             //ideally i would love to figure out the distance difference as well, but that requires lengths up to the parent items
             scrollCenterItem.set(newScrollCenter);
         }
         previousScrollCenterItemVisibleIndex = scrollCenterItem.get().visibleIndexProperty.get();
 
+        if (bindingBudgetNano > 0) {
+            bindingDeadlineNano = System.nanoTime() + bindingBudgetNano;
+            if (placeholderRowCount > 0)
+                completePlaceholders();
+        }
+
         TreeItem<T> earlyBound = null;
         TreeItem<T> laterBound = null;
         double topOfLaidCells = Double.POSITIVE_INFINITY;
         double botOfLaidCells = Double.NEGATIVE_INFINITY;
-        List<TreeCell<T>> laidCells = new LinkedList<>();
-        List<TreeItem<T>> laidItems = new LinkedList<>();
-        List<TreeCaretNode<T>> laidCarets = new LinkedList<>();
-        Set<TreeGuideNode<T>> laidGuides = new HashSet<>();
+        layoutPass++;
+        laidRows.clear();
 
         double caretWidth = defaultCaretWidth.get();
         double guideWidth = defaultGuideWidth.get();
@@ -638,139 +1131,110 @@ public class TreeView<T> extends Pane {
         cellParent.resizeRelocate(0, 0, width, height);
 //        caretParent.resizeRelocate(0, 0, width, height);
         guideParent.resizeRelocate(0, 0, width, height);
+        //rows show inside the insets only, the same area the pass fills and a translate has to keep covered
+        double clipHeight = FastMath.max(0, height - topPad - bottomPad);
+        clipTop = topPad;
         layoutBoundsRect1.setWidth(width);
-        layoutBoundsRect1.setHeight(height);
+        layoutBoundsRect1.setHeight(clipHeight);
         layoutBoundsRect2.setWidth(width);
-        layoutBoundsRect2.setHeight(height);
+        layoutBoundsRect2.setHeight(clipHeight);
         layoutBoundsRect3.setWidth(width);
-        layoutBoundsRect3.setHeight(height);
+        layoutBoundsRect3.setHeight(clipHeight);
+
+        setLaidRowsTranslate(0);
 
         double contentAvailableHeight = height - topPad - bottomPad;
         TreeItem<T> centerItem = scrollCenterItem.get();
-        double middleY = contentAvailableHeight * centerItem.visibleIndexProperty.get()/(double)(rootItemProperty.get().visibleDescCountProperty.get())+topPad-centerItemScrollOffset.get();
-        middleY = snapSpaceY(middleY, true);
+        double middleY = centerMiddleY(centerItem, topPad, contentAvailableHeight);
 
         // width could be -1
 
         final boolean isFillWidth = isFillWidth();
 
-        List<CellLayoutSettings<T>> cellLayouts = new LinkedList<>();
-        List<CaretLayoutSettings<T>> caretLayouts = new LinkedList<>();
-        List<GuideLayoutSettings<T>[]> guideLayoutGrid = new ArrayList<>();
-
         //we aren't using it yet, but for efficiency we could cache early and later bound
-        CellLayoutPass<T> result = doCellLayoutPass(earlyBound, laterBound, centerItem, topPad, height, bottomPad, middleY, leftPad, isFillWidth, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets, topOfLaidCells, botOfLaidCells);
+        doCellLayoutPass(earlyBound, laterBound, centerItem, topPad, height, bottomPad, middleY, leftPad, isFillWidth, topOfLaidCells, botOfLaidCells);
 
         //region lay out guides and carets
-        int startIndex = result.earlyBound().visibleIndexProperty.get();
-        int endIndex = result.laterBound().visibleIndexProperty.get();
-
-        @SuppressWarnings("unchecked")
-        TreeGuideNode<T>[][] guideGrid = new TreeGuideNode[endIndex-startIndex+1][result.maxVisibleDepth];
-        @SuppressWarnings("unchecked")
-        TreeCaretNode<T>[][] caretGrid = new TreeCaretNode[endIndex-startIndex+1][result.maxVisibleDepth];
-
-        //region take care of guides from invisible parent items.
-        TreeItem<T> p0 = result.earlyBound().parentProperty.get();
-        while(p0 != null) {
-            List<TreeGuideNode<T>> guidesInColumn = getTreeGuideNodesColumn(p0, startIndex, endIndex);
-            laidGuides.addAll(guidesInColumn);
-
-            for (TreeGuideNode<T> guideNode : guidesInColumn) {
-                if (guideNode != null)
-                    guideGrid[guideNode.getVisibleIndex() - startIndex][guideNode.getDepth()] = guideNode;
-            }
-
-            p0 = p0.parentProperty.get();
-        }
-        //endregion take care of guides from invisible parent items.
-
-        //region take care of visible cell's guides
-        TreeItem<T> c0 = result.earlyBound();
-        do {
-            List<TreeGuideNode<T>> guidesInColumn = getTreeGuideNodesColumn(c0, startIndex, endIndex);
-            laidGuides.addAll(guidesInColumn);
-
-            for (TreeGuideNode<T> guideNode : guidesInColumn) {
-                if (guideNode != null)
-                    guideGrid[guideNode.getVisibleIndex() - startIndex][guideNode.getDepth()] = guideNode;
-            }
-
-            c0 = c0.nextVisibleItemProperty.get();
-
-        } while (c0 != result.laterBound() && c0 != null);
-        //endregion take care of visible cell's guides
-
-        //region guides were just acquired by column, but are sized according to row and column. assign their layout settings here
-        for (CellLayoutSettings<T> rowItemLayout : cellLayouts) {
-            TreeItem<T> rowItem = rowItemLayout.item;
-
-            int atIndex = rowItem.visibleIndexProperty.get()-startIndex;
-            int depth = rowItem.depthProperty.get();
-
-            @SuppressWarnings("unchecked")
-            GuideLayoutSettings<T>[] row = new GuideLayoutSettings[depth];
-            guideLayoutGrid.add(row);
-
-            for (int d = 0; d < depth; d++) {
-
-                TreeGuideNode<T> guide = guideGrid[atIndex][d];
-
-                if (guide == null)
-                    continue;
-
-                guide.setRowTreeItem(rowItem);
-
-                //fill margin space with carets and guides. don't leave the cell's margins open
-                Insets margin = rowItem.currentCellProperty.get().getMargins();
-                double b = 0;// margin == null ? 0 : margin.getBottom();
-                double t = 0;// margin == null ? 0 : margin.getTop();
-
-                rowItem.settableParentGuideProperty.set(guide);
-
-                TreeItem<T> colItem = guide.getColumnTreeItem();//if we ever decide the parent item has something to do with guide size?
-                row[d] = new GuideLayoutSettings<>(guide, leftPad + guideWidth * (d), rowItemLayout.areaY - t, guideWidth, rowItemLayout.areaHeight + t + b, rowItemLayout.areaBaselineOffset + t + b, guide.getMargins(), true, true, HPos.CENTER, VPos.CENTER);
-            }
-        }
-        //endregion guides were just acquired by column, but are sized according to row and column. assign their layout settings here
+        int rowCount = laidRows.size();
+        int startIndex = laidRows.item(0).visibleIndexProperty.get();
 
-        setUnusedCellsFromUsedCells(laidCells);
-        setUnusedCaretsFromUsedCarets(laidCarets);
-        setUnusedGuidesFromUsedGuides(laidGuides);
-
-        //region layout cells and carets according to their settings
-        double firstHeight = cellLayouts.getFirst().areaHeight();
-        double firstOff = centerItemScrollOffset.get();
-        CellLayoutSettings<T> hoveredLayoutSettings = null;
-        for (CellLayoutSettings<T> l : cellLayouts) {
+        boolean guideNodes = guideRendering.get() == GuideRendering.NODES;
+        int maxVisibleDepth = 0;
+        if (guideNodes) {
+            for (int r = 0; r < rowCount; r++)
+                maxVisibleDepth = FastMath.max(laidRows.item(r).depthProperty.get(), maxVisibleDepth);
+
+            updateGuideGrid(startIndex, rowCount, maxVisibleDepth);
+        } else
+            guideGridRowCount = 0;
+
+        if (!prepareOverscan(KEEP_OVERSCAN))
+            pulseTimer.start();
+        setUnusedCellsFromUsedCells();
+        setUnusedCaretsFromUsedCarets();
+        setUnusedGuidesFromUsedGuides();
+
+        //region layout cells, carets and guides according to their rows
+        double firstOff = laidRowsOffset();
+        laidRowsOffsetAtLayout = firstOff;
+        int hoveredRow = -1;
+        placeholderRowCount = 0;
+        for (int r = 0; r < rowCount; r++) {
+            TreeCell<T> cell = laidRows.cell(r);
+            if (cell.getPool().cellType == PLACEHOLDER_CELL_TYPE)
+                placeholderRowCount++;
             if(expandHoveredCell.get()) {
-                if (l.cell == hoveredCell.get()) {
-                    hoveredLayoutSettings = l;
-                    l.cell.setVisible(false);
+                if (cell == hoveredCell.get()) {
+                    hoveredRow = r;
+                    cell.setVisible(false);
                 } else {
-                    l.cell.setVisible(true);
+                    cell.setVisible(true);
                 }
             }
-            layoutInArea(l.cell, l.areaX, l.areaY+firstOff, l.areaWidth, l.areaHeight, l.areaBaselineOffset, l.margin, l.fillWidth, l.fillHeight, l.halignment, l.valignment);
+            layoutInArea(cell, laidRows.x(r), laidRows.y(r)+firstOff, laidRows.width(r), laidRows.height(r), laidRows.height(r), cell.getMargins(), isFillWidth, true, HPos.LEFT, VPos.CENTER);
         }
-        for (CaretLayoutSettings<T> l : caretLayouts) {
-            layoutInArea(l.caret, l.areaX, l.areaY+firstOff, l.areaWidth, l.areaHeight, l.areaBaselineOffset, l.margin, l.fillWidth, l.fillHeight, l.halignment, l.valignment);
+        for (int r = 0; r < rowCount; r++) {
+            TreeCaretNode<T> caret = laidRows.caret(r);
+            if (caret != null)
+                layoutInArea(caret, laidRows.x(r) - caretWidth, laidRows.caretY(r)+firstOff, caretWidth, laidRows.caretHeight(r), laidRows.caretHeight(r), caret.getMargins(), true, true, HPos.CENTER, VPos.CENTER);
         }
 
-        for (GuideLayoutSettings<T>[] ls : guideLayoutGrid) {
-            for (GuideLayoutSettings<T> l : ls) {
-                if (l == null)
-                    continue;
-//                l.guide.resizeRelocate(l.areaX, l.areaY+firstOff, l.areaWidth, l.areaHeight);
-                layoutInArea(l.guide, l.areaX, l.areaY+firstOff, l.areaWidth, l.areaHeight, l.areaBaselineOffset, l.margin, l.fillWidth, l.fillHeight, l.halignment, l.valignment);
+        if (guideNodes) {
+            for (int r = 0; r < rowCount; r++) {
+                TreeItem<T> rowItem = laidRows.item(r);
+                int atIndex = rowItem.visibleIndexProperty.get()-startIndex;
+                int depth = rowItem.depthProperty.get();
+                for (int d = 0; d < depth; d++) {
+                    TreeGuideNode<T> guide = guideGrid[atIndex * maxVisibleDepth + d];
+                    if (guide == null)
+                        continue;
+                    layoutInArea(guide, leftPad + guideWidth * d, laidRows.y(r)+firstOff, guideWidth, laidRows.height(r), laidRows.height(r), guide.getMargins(), true, true, HPos.CENTER, VPos.CENTER);
+                }
             }
         }
 
+        guideCanvas.setVisible(!guideNodes);
+        if (!guideNodes)
+            guideCanvas.draw(laidRows, firstOff, leftPad, guideWidth, caretWidth, guideRendering.get() == GuideRendering.CANVAS_WITH_CARETS, width, guideStroke.get());
+        else if (guideCanvas.getHeight() > 0) {
+            //let go of the canvas' image while it isn't shown
+            guideCanvas.setWidth(0);
+            guideCanvas.setHeight(0);
+        }
+
 
         //region offer this slick hover effect that intellij has where hovering a row reveals the whole row even outside the parent
         if (expandHoveredCell.get()) {
+            //the copy has to be the same type of cell as the one it copies
+            Object hoveredType = hoveredRow >= 0 ? hoveredCell.get().getPool().cellType : hoverCopyCellType;
+            if(hoverCopyCell != null && !Objects.equals(hoverCopyCellType, hoveredType)) {
+                getChildren().remove(hoverCopyCell);
+                hoverCopyCell = null;
+            }
             if(hoverCopyCell == null) {
-                hoverCopyCell = cellFactory.apply(this);
+                hoverCopyCell = getCellFactory(hoveredType).apply(this);
+                hoverCopyCellType = hoveredType;
+                applyPseudoClassPolicy(hoverCopyCell);
                 hoverCopyCell.setManaged(false);
                 hoverCopyCell.setVisible(false);
                 hoverCopyCell.setOnMouseEntered(a-> {
@@ -786,14 +1250,19 @@ public class TreeView<T> extends Pane {
                 getChildren().add(hoverCopyCell);
             }
 
-            if (hoveredLayoutSettings != null) {
+            if (hoveredRow >= 0) {
                 TreeCell<T> c = hoveredCell.get();
                 TreeItem<T> item = c.getTreeItem();
-                hoverCopyCell.setTreeItem(item);
-                hoverCopyCell.updateVisuals(item.valueProperty.get(), item);
-//                hoverCopyCell.applyCss();
-                CellLayoutSettings<T> l = hoveredLayoutSettings;
-                layoutInArea(hoverCopyCell, l.areaX, l.areaY+firstOff, l.areaWidth, l.areaHeight, l.areaBaselineOffset, l.margin, l.fillWidth, l.fillHeight, l.halignment, l.valignment);
+                //bound again only for another item, so content it computes isn't recomputed every pass
+                if (hoverCopyCell.getTreeItem() != item) {
+                    hoverCopyCell.setTreeItem(item);
+                    hoverCopyCell.updateVisuals(item.valueProperty.get(), item);
+                    hoverCopyCell.contentChanged();
+                }
+                if (hoverCopyCell.takeStylesChanged())
+                    hoverCopyCell.applyCss();
+                int r = hoveredRow;
+                layoutInArea(hoverCopyCell, laidRows.x(r), laidRows.y(r)+firstOff, laidRows.width(r), laidRows.height(r), laidRows.height(r), c.getMargins(), isFillWidth, true, HPos.LEFT, VPos.CENTER);
                 hoverCopyCell.setVisible(true);
             }
             else {
@@ -809,26 +1278,76 @@ public class TreeView<T> extends Pane {
         //region adjust scroll bar location.
         double scrollBarEnd = rootItemProperty.get().latestVisibleDescendantProperty.get().visibleIndexProperty.get();
         double scrollBarLocation = scrollCenterItem.get().visibleIndexProperty.get();
-        double scrollBarPortion = laidCells.size() / scrollBarEnd;
+        double scrollBarPortion = rowCount / scrollBarEnd;
 
         double scrollBarWidth = verticalScrollBar.prefWidth(height);
         layoutInArea(verticalScrollBar, width-scrollBarWidth, 0, scrollBarWidth, height, 0, HPos.RIGHT, VPos.CENTER);
-        modifiableVisibleItems.setAll(laidItems);
+        updateVisibleItems();
+        scrollBarVisibleAmount.invalidate();
+        scrollBarMax.invalidate();
         verticalScrollIndex.get();
         verticalScrollBar.maxProperty().get();
         //endregion adjust scroll bar location
 
-//        log.info("{}", scrollCenterItem.get());
-//        printGrid(guideLayoutGrid);
-//        log.info("{}items, {}cells, {}getChVis, {}getChildren", laidItems.size(), laidCells.size(), getChildren().stream().filter(Node::isVisible).count(), getChildren().size());
+        if(modelItems != null)
+            modelItems.evictUnbound(rootItemProperty.get(), scrollCenterItem.get());
 
-        applyCss();//force layout to avoid flickering at the top and bottom on fast scrolling
-        //not sure why we're still getting hover expand flicker when it should always be in the "correct" spot
+//        log.info("{}", scrollCenterItem.get());
+//        log.info("{}items, {}getChVis, {}getChildren", rowCount, getChildren().stream().filter(Node::isVisible).count(), getChildren().size());
+
+        bindingDeadlineNano = Long.MAX_VALUE;
+        if (placeholderRowCount > 0) {
+            settableViewportSettled.set(false);
+            pulseTimer.start();
+        } else if (!settableViewportSettled.get()) {
+            settableViewportSettled.set(true);
+            if (onViewportSettled.get() != null)
+                onViewportSettled.get().run();
+        }
 
         super.layoutChildren();
     }
 
-    private CellLayoutPass<T> doCellLayoutPass(TreeItem<T> earlyBound, TreeItem<T> laterBound, TreeItem<T> centerItem, double topPad, double height, double bottomPad, double middleY, double leftPad, boolean isFillWidth, List<CellLayoutSettings<T>> cellLayouts, List<CaretLayoutSettings<T>> caretLayouts, List<TreeCell<T>> laidCells, List<TreeItem<T>> laidItems, List<TreeCaretNode<T>> laidCarets, double topOfLaidCells, double botOfLaidCells) {
+    /**
+     * binds the real cells of the rows the last pass left with placeholders, from its center row outwards, until the
+     * budget runs out. the rows still in view are then laid with them like any other bound row
+     */
+    private void completePlaceholders() {
+        int rows = laidRows.size();
+        int center = 0;
+        for (int r = 0; r < rows; r++) {
+            if (laidRows.item(r) == scrollCenterItem.get()) {
+                center = r;
+                break;
+            }
+        }
+        for (int d = 0; d < rows; d++) {
+            if (center - d >= 0 && !completePlaceholder(laidRows.item(center - d)))
+                return;
+            if (d > 0 && center + d < rows && !completePlaceholder(laidRows.item(center + d)))
+                return;
+        }
+    }
+
+    /**
+     * false once the budget has run out
+     */
+    private boolean completePlaceholder(TreeItem<T> item) {
+        TreeCell<T> cell = item.currentCellProperty.get();
+        if (cell == null || cell.getPool().cellType != PLACEHOLDER_CELL_TYPE || !item.isVisibleProperty.get())
+            return true;
+        if (bindingOverBudget())
+            return false;
+        releaseCell(cell);
+        sizedTreeCell(item);
+        return true;
+    }
+
+    private boolean bindingOverBudget() {
+        return System.nanoTime() > bindingDeadlineNano;
+    }
+
+    private void doCellLayoutPass(TreeItem<T> earlyBound, TreeItem<T> laterBound, TreeItem<T> centerItem, double topPad, double height, double bottomPad, double middleY, double leftPad, boolean isFillWidth, double topOfLaidCells, double botOfLaidCells) {
 
         //when carets close a branch, the tree view's central cell could still be in the closed branch. current cell needs to change after collapse and expand
         // when a node is collapsed or expanded, the new index needs to be calculated starting from that changed node down.
@@ -840,167 +1359,212 @@ public class TreeView<T> extends Pane {
             earlyBound = centerItem;
             laterBound = centerItem;
 
-            CellLayoutSettings<T> layoutSettings = cacheLayoutOfCenterItem(centerItem, topPad, height, bottomPad, middleY, leftPad, isFillWidth, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
+            cacheLayoutOfCenterItem(centerItem, topPad, height, bottomPad, middleY, leftPad, isFillWidth);
 
             Insets margin = centerItem.currentCellProperty.get().getMargins();
             double cellTopMarg = margin==null ? 0 : margin.getTop();
             double cellBotMarg = margin==null ? 0 : margin.getBottom();
 
-            topOfLaidCells = layoutSettings.areaY - cellTopMarg;
-            botOfLaidCells = layoutSettings.areaY + layoutSettings.areaHeight - cellTopMarg;
-        }
-
-        //region track up
-        while (topOfLaidCells >= 0) {
-
-            CellLayoutSettings<T> layoutSettings = cacheLayoutOfOneItemUp(earlyBound, leftPad, topOfLaidCells, isFillWidth, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
-            if(earlyBound.previousVisibleItemProperty.get() == null)
-                break;
-
-            earlyBound = earlyBound.previousVisibleItemProperty.get();
-
-            TreeCell<T> cell = earlyBound.currentCellProperty.get();
-            topOfLaidCells -= cell.getHeight() + getMarginHeight(cell);
-        }
-        //endregion track up
-
-        //region track up one more
-        // not sure why bot and top aren't perfectly matching up at the edges, but close enough just add one more
-        cacheLayoutOfOneItemUp(earlyBound, leftPad, topOfLaidCells, isFillWidth, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
-        if(earlyBound.previousVisibleItemProperty.get() != null) {
-            earlyBound = earlyBound.previousVisibleItemProperty.get();
-
-            TreeCell<T> cell = earlyBound.currentCellProperty.get();
-            topOfLaidCells -= cell.getHeight() + getMarginHeight(cell);
-        }
-        //endregion track up one more
-
-        //region track down
-        while (botOfLaidCells <= height) {
-
-            CellLayoutSettings<T> layoutSettings = cacheLayoutOfOneItemDown(laterBound, leftPad, botOfLaidCells, isFillWidth, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
-            if(laterBound.nextVisibleItemProperty.get() == null)
-                break;
-
-            laterBound = laterBound.nextVisibleItemProperty.get();
-
-            TreeCell<T> cell = laterBound.currentCellProperty.get();
-            botOfLaidCells += cell.getHeight() + getMarginHeight(cell);
+            topOfLaidCells = laidRows.y(0) - cellTopMarg;
+            botOfLaidCells = laidRows.y(0) + laidRows.height(0) - cellTopMarg;
         }
-        //endregion track down
 
-        //region track down one more
-        // not sure why bot and top aren't perfectly matching up at the edges, but close enough just add one more
-        cacheLayoutOfOneItemDown(laterBound, leftPad, botOfLaidCells, isFillWidth, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
-        if(laterBound.nextVisibleItemProperty.get() != null) {
-            laterBound = laterBound.nextVisibleItemProperty.get();
-
-            TreeCell<T> cell = laterBound.currentCellProperty.get();
-            botOfLaidCells += cell.getHeight() + getMarginHeight(cell);
-        }
-        //endregion track down one more
-
-        int maxVisibleDepth = 0;
-        for (TreeItem<T> laidItem : laidItems) {
-            maxVisibleDepth = FastMath.max(laidItem.depthProperty.get(), maxVisibleDepth);
+        //region track up and down
+        //a row up, then a row down, so a pass that runs out of binding budget has bound the rows nearest the center,
+        //the same order the later passes replace its placeholders in.
+        // not sure why bot and top aren't perfectly matching up at the edges, but close enough, each side lays one more
+        boolean tracingUp = true;
+        boolean tracingDown = true;
+        while (tracingUp || tracingDown) {
+            if (tracingUp) {
+                boolean oneMore = topOfLaidCells < topPad;
+                cacheLayoutOfOneItemUp(earlyBound, leftPad, topOfLaidCells, isFillWidth);
+                TreeItem<T> previous = earlyBound.previousVisibleItemProperty.get();
+                tracingUp = previous != null && !oneMore;
+                if (previous != null) {
+                    earlyBound = previous;
+                    TreeCell<T> cell = earlyBound.currentCellProperty.get();
+                    topOfLaidCells -= cell.getCachedHeight() + getMarginHeight(cell);
+                }
+            }
+            if (tracingDown) {
+                boolean oneMore = botOfLaidCells > height - bottomPad;
+                cacheLayoutOfOneItemDown(laterBound, leftPad, botOfLaidCells, isFillWidth);
+                TreeItem<T> next = laterBound.nextVisibleItemProperty.get();
+                tracingDown = next != null && !oneMore;
+                if (next != null) {
+                    laterBound = next;
+                    TreeCell<T> cell = laterBound.currentCellProperty.get();
+                    botOfLaidCells += cell.getCachedHeight() + getMarginHeight(cell);
+                }
+            }
         }
-
-
-        return new CellLayoutPass<>(earlyBound, laterBound, maxVisibleDepth);
+        //endregion track up and down
     }
 
-    private record CellLayoutPass<T>(TreeItem<T> earlyBound, TreeItem<T> laterBound, int maxVisibleDepth) {
-    }
-
-    private CellLayoutSettings<T> cacheLayoutOfCenterItem(TreeItem<T> centerItem, double topPad, double height, double bottomPad, double middleY, double leftPad, boolean isFillWidth, List<CellLayoutSettings<T>> cellLayouts, List<CaretLayoutSettings<T>> caretLayouts, List<TreeCell<T>> laidCells, List<TreeItem<T>> laidItems, List<TreeCaretNode<T>> laidCarets) {
+    private void cacheLayoutOfCenterItem(TreeItem<T> centerItem, double topPad, double height, double bottomPad, double middleY, double leftPad, boolean isFillWidth) {
         TreeCell<T> cell = getTreeCell(centerItem);
         sizeSingleCell(cell);
 
-        Insets margin = cell.getMargins();
+        layoutOneCell(centerItem, leftPad, centerRowTop(cell, middleY, topPad, height, bottomPad), isFillWidth, false);
+    }
 
+    /**
+     * where the middle of the center row goes, before the rows are shifted by {@link #laidRowsOffset()}
+     */
+    private double centerMiddleY(TreeItem<T> centerItem, double topPad, double contentAvailableHeight) {
+        double middleY;
+        if(alignmentMethod.get() == AlignmentMethod.LENGTH) {
+            //the anchor sits as far down the view as the center item's point on it is down all the rows.
+            //rows are placed exactly, so the offset goes in here and isn't added again when they're laid out
+            sizedTreeCell(centerItem);
+            double rowsHeight = rowsHeight();
+            middleY = contentAvailableHeight * scrollCenterPx()/FastMath.max(rowsHeight, 1)+topPad+centerItemScrollOffset.get();
+        } else
+            middleY = contentAvailableHeight * centerItem.visibleIndexProperty.get()/(double)(rootItemProperty.get().visibleDescCountProperty.get())+topPad-centerItemScrollOffset.get();
+        return snapSpaceY(middleY, true);
+    }
+
+    private double centerRowTop(TreeCell<T> cell, double middleY, double topPad, double height, double bottomPad) {
         double halfHeight = cell.getCachedHeight()/2;
         double topLimit = topPad;
         double botLimit = height - bottomPad;
 
         double min = topLimit + halfHeight;
         double max = botLimit - halfHeight;
-        middleY = Math.clamp(middleY, FastMath.min(min,max), max);
+        if(alignmentMethod.get() == AlignmentMethod.INDEX)
+            middleY = Math.clamp(middleY, FastMath.min(min,max), max);
 
-        double topOfLaidCells = middleY - FastMath.ceil(halfHeight);
+        return middleY - FastMath.ceil(halfHeight);
+    }
 
-        return layoutOneCell(centerItem, leftPad, topOfLaidCells, isFillWidth, false, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
+    /**
+     * added to every row once they're all placed. in INDEX mode the center row is placed by its index alone and the
+     * offset slides everything after
+     */
+    private double laidRowsOffset() {
+        return alignmentMethod.get() == AlignmentMethod.LENGTH ? 0 : centerItemScrollOffset.get();
     }
 
-    private CellLayoutSettings<T> cacheLayoutOfOneItemDown(TreeItem<T> laterBound, double leftPad, double botOfLaidCells, boolean isFillWidth, List<CellLayoutSettings<T>> cellLayouts, List<CaretLayoutSettings<T>> caretLayouts, List<TreeCell<T>> laidCells, List<TreeItem<T>> laidItems, List<TreeCaretNode<T>> laidCarets) {
+    private void cacheLayoutOfOneItemDown(TreeItem<T> laterBound, double leftPad, double botOfLaidCells, boolean isFillWidth) {
         TreeItem<T> nextLaterBound = laterBound.nextVisibleItemProperty.get();
         if(nextLaterBound == null)
-            return null;
+            return;
         laterBound = nextLaterBound;
 
         TreeCell<T> cell = getTreeCell(laterBound);
         sizeSingleCell(cell);
 
-        return layoutOneCell(laterBound, leftPad, botOfLaidCells + marginTop(cell), isFillWidth, false, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
+        layoutOneCell(laterBound, leftPad, botOfLaidCells + marginTop(cell), isFillWidth, false);
     }
 
-    private CellLayoutSettings<T> cacheLayoutOfOneItemUp(TreeItem<T> earlyBound, double leftPad, double topOfLaidCells, boolean isFillWidth, List<CellLayoutSettings<T>> cellLayouts, List<CaretLayoutSettings<T>> caretLayouts, List<TreeCell<T>> laidCells, List<TreeItem<T>> laidItems, List<TreeCaretNode<T>> laidCarets) {
+    private void cacheLayoutOfOneItemUp(TreeItem<T> earlyBound, double leftPad, double topOfLaidCells, boolean isFillWidth) {
         TreeItem<T> nextEarlyBound = earlyBound.previousVisibleItemProperty.get();
         if(nextEarlyBound == null)
-            return null;
+            return;
         earlyBound = nextEarlyBound;
 
         TreeCell<T> cell = getTreeCell(earlyBound);
         sizeSingleCell(cell);
 
-        return layoutOneCell(earlyBound, leftPad, topOfLaidCells - cell.getHeight() - marginBottom(cell), isFillWidth, true, cellLayouts, caretLayouts, laidCells, laidItems, laidCarets);
+        layoutOneCell(earlyBound, leftPad, topOfLaidCells - cell.getCachedHeight() - marginBottom(cell), isFillWidth, true);
     }
 
-    private CellLayoutSettings<T> layoutOneCell(TreeItem<T> treeItem, double leftPad, double areaY, boolean isFillWidth, boolean up, List<CellLayoutSettings<T>> cellLayouts, List<CaretLayoutSettings<T>> caretLayouts, List<TreeCell<T>> laidCells, List<TreeItem<T>> laidItems, List<TreeCaretNode<T>> laidCarets) {
+    private void layoutOneCell(TreeItem<T> treeItem, double leftPad, double areaY, boolean isFillWidth, boolean up) {
         TreeCell<T> cell = treeItem.currentCellProperty.get();
+        cell.setLaidOutPass(layoutPass);
+        //overscan rows are prepared hidden
+        if (!cell.isVisible())
+            cell.setVisible(true);
 
         //set layout values
         int depth = treeItem.depthProperty.get();
         double depthIndent = depth * defaultGuideWidth.get();
         Insets margin = cell.getMargins();
 
-        CellLayoutSettings<T> layoutSettings = new CellLayoutSettings<>(cell, treeItem, leftPad + depthIndent, areaY,
-                cell.getCachedConstraints().widthAvailable(), cell.getCachedHeight(), cell.getCachedHeight(),
-                margin, isFillWidth, true, HPos.LEFT, VPos.CENTER);
-
-        //add to lists
-        if(up) {
-            cellLayouts.addFirst(layoutSettings);
-            laidCells.addFirst(cell);
-            laidItems.addFirst(treeItem);
-        } else {
-            cellLayouts.addLast(layoutSettings);
-            laidCells.addLast(cell);
-            laidItems.addLast(treeItem);
-        }
-
         //set up caret
-        if (!treeItem.childrenProperty.isEmpty()) {
-            TreeCaretNode<T> caret = getTreeCaretNode(treeItem);
+        TreeCaretNode<T> caret = null;
+        double caretY = 0;
+        double caretHeight = 0;
+        if (treeItem.mayHaveChildren()) {
+            //drawn carets only need the area
+            if (guideRendering.get() != GuideRendering.CANVAS_WITH_CARETS) {
+                caret = getTreeCaretNode(treeItem);
+                caret.setLaidOutPass(layoutPass);
+            }
 
             //fill margin space with carets and guides. don't leave the cell's margins open
             double b = margin == null ? 0 : margin.getBottom();
             double t = margin == null ? 0 : margin.getTop();
 
-            //set layout values
-            CaretLayoutSettings<T> caretLayoutSettings = new CaretLayoutSettings<>(caret, leftPad + depthIndent - defaultCaretWidth.get(), areaY-t, defaultCaretWidth.get(), cell.getCachedHeight()+t+b, cell.getCachedHeight()+t+b,
-                    caret.getMargins(), true, true, HPos.CENTER, VPos.CENTER);
+            caretY = areaY-t;
+            caretHeight = cell.getCachedHeight()+t+b;
+        }
 
-            //add to lists
-            if(up) {
-                caretLayouts.addFirst(caretLayoutSettings);
-                laidCarets.addFirst(caret);
-            } else {
-                caretLayouts.addLast(caretLayoutSettings);
-                laidCarets.addLast(caret);
+        laidRows.add(up, treeItem, cell, leftPad + depthIndent, areaY, cell.getCachedConstraints().widthAvailable(), cell.getCachedHeight(), caret, caretY, caretHeight);
+    }
+
+    //a deadline that has always passed, so the overscan rows already prepared are kept and no others are
+    private static final long KEEP_OVERSCAN = Long.MIN_VALUE;
+
+    /**
+     * goes through the overscan rows above and below the laid rows, nearest first. rows that are already bound and
+     * measured are kept through this pass and hidden. the others are bound and measured until the deadline passes.
+     * returns whether every overscan row is ready
+     */
+    private boolean prepareOverscan(long deadlineNano) {
+        if (laidRows.size() == 0)
+            return true;
+        TreeItem<T> firstLaid = laidRows.item(0);
+        TreeItem<T> lastLaid = laidRows.item(laidRows.size() - 1);
+        //the tree changed under the laid rows, the next layout starts over from the new ones
+        if (!firstLaid.isVisibleProperty.get() || !lastLaid.isVisibleProperty.get())
+            return true;
+
+        boolean px = overscanUnit.get() == OverscanUnit.PIXELS;
+        double aboveLeft = overscanAbove.get();
+        double belowLeft = overscanBelow.get();
+        TreeItem<T> above = firstLaid.previousVisibleItemProperty.get();
+        TreeItem<T> below = lastLaid.nextVisibleItemProperty.get();
+        boolean ready = true;
+        while ((above != null && aboveLeft > 0) || (below != null && belowLeft > 0)) {
+            if (above != null && aboveLeft > 0) {
+                double h = prepareOverscanRow(above, deadlineNano);
+                if (Double.isNaN(h)) {
+                    ready = false;
+                    h = estimatedRowHeight();
+                }
+                aboveLeft -= px ? h : 1;
+                above = above.previousVisibleItemProperty.get();
+            }
+            if (below != null && belowLeft > 0) {
+                double h = prepareOverscanRow(below, deadlineNano);
+                if (Double.isNaN(h)) {
+                    ready = false;
+                    h = estimatedRowHeight();
+                }
+                belowLeft -= px ? h : 1;
+                below = below.nextVisibleItemProperty.get();
             }
         }
+        return ready;
+    }
 
-        return layoutSettings;
+    /**
+     * the row's height once its cell is bound and measured, or NaN when it isn't and the deadline has passed
+     */
+    private double prepareOverscanRow(TreeItem<T> item, long deadlineNano) {
+        TreeCell<T> cell = item.currentCellProperty.get();
+        boolean prepared = cell != null && cell.getCachedConstraints() != null && Objects.equals(cell.getPool().cellType, cellTypeOf(item));
+        if (!prepared) {
+            if (deadlineNano == KEEP_OVERSCAN || System.nanoTime() > deadlineNano)
+                return Double.NaN;
+            cell = sizedTreeCell(item);
+        }
+        cell.setLaidOutPass(layoutPass);
+        if (cell.isVisible())
+            cell.setVisible(false);
+        return cell.getCachedHeight() + getMarginHeight(cell);
     }
 
     private double marginTop(TreeCell<T> cell) {
@@ -1059,13 +1623,16 @@ public class TreeView<T> extends Pane {
 
     public List<TreeGuideNode<T>> getChildGuides(TreeItem<T> item) {
         int depth = item.depthProperty.get();
-        if(item.currentCellProperty.get()==null)
+        if(!item.isVisibleProperty.get())
             return List.of();
-        int startRow = item.visibleIndexProperty.get() + 1;
-        int guideCnt = FastMath.min(item.visibleDescCountProperty.get(), visibleItems.getSize());
-        List<TreeGuideNode<T>> childGuideNodes = new ArrayList<>(guideCnt);
-        for (int i = 0; i < guideCnt; i++) {
-            TreeGuideNode<T> guide = findGuide(depth, startRow+i);
+        //the item's own row may be scrolled away while its children's rows are laid, so only the rows are clipped
+        int startRow = FastMath.max(item.visibleIndexProperty.get() + 1, guideGridStart);
+        int endRow = FastMath.min(item.visibleIndexProperty.get() + item.visibleDescCountProperty.get(), guideGridStart + guideGridRowCount - 1);
+        if(endRow < startRow)
+            return List.of();
+        List<TreeGuideNode<T>> childGuideNodes = new ArrayList<>(endRow - startRow + 1);
+        for (int row = startRow; row <= endRow; row++) {
+            TreeGuideNode<T> guide = findGuide(depth, row);
             if (guide != null) {
                 childGuideNodes.add(guide);
             }
@@ -1089,31 +1656,45 @@ public class TreeView<T> extends Pane {
     }
 
     private TreeGuideNode<T> findGuide(int column, int row) {
-        return null;
+        int at = row - guideGridStart;
+        if (at < 0 || at >= guideGridRowCount || column < 0 || column >= guideGridColumns)
+            return null;
+        return guideGrid[at * guideGridColumns + column];
     }
 
     private TreeCell<T> getTreeCell(TreeItem<T> item) {
         TreeCell<T> cell = item.currentCellProperty.get();
+        Object type = cellTypeOf(item);
+        boolean overBudget = type != LOADING_CELL_TYPE && bindingOverBudget();
+        if (cell != null && !Objects.equals(cell.getPool().cellType, type) && !(overBudget && cell.getPool().cellType == PLACEHOLDER_CELL_TYPE)) {
+            //the item's type changed since it was bound, or it was a placeholder, so its cell can't show it anymore
+            releaseCell(cell);
+            cell = null;
+        }
         if (cell == null)
-            cell = getARow(item);
-        else if (cell.getCachedConstraints() == null)
+            cell = getARow(item, overBudget ? PLACEHOLDER_CELL_TYPE : type);
+        else if (cell.getCachedConstraints() == null) {
+            cell.cancelContent();
             cell.updateVisuals(item.valueProperty.get(), item);
+            cell.contentChanged();
+        }
+
+        //the scene styled everything before this pass began, so what the pass binds is styled here, before it's measured
+        if (cell.takeStylesChanged())
+            cell.applyCss();
         return cell;
     }
 
-    private TreeCell<T> getARow(TreeItem<T> item) {
-        TreeCell<T> cell = null;
-
-        for (TreeCell<T> allocatedCell : allocatedCells) {
-            if (allocatedCell.getTreeItem() == null) {
-                cell = allocatedCell;
-                cell.setVisible(true);
+    private TreeCell<T> getARow(TreeItem<T> item, Object type) {
+        CellPool<T> pool = cellPools.computeIfAbsent(type, CellPool::new);
 
-                break;
-            }
-        }
-        if(cell == null) {
-            allocatedCells.add(cell = cellFactory.apply(this));
+        TreeCell<T> cell = pool.acquire();
+        if(cell != null)
+            cell.setVisible(true);
+        else {
+            allocatedCells.add(cell = getCellFactory(pool.cellType).apply(this));
+            pool.created(cell);
+            applyPseudoClassPolicy(cell);
             cell.setManaged(false);
             TreeCell<T> finalCell = cell;
             cell.setOnMouseEntered(me->hoverEffect(me, finalCell));
@@ -1127,12 +1708,25 @@ public class TreeView<T> extends Pane {
         cell.setTreeItem(item);
         item.settableCellProperty.set(cell);
         cell.updateVisuals(item.valueProperty.get(), item);
+        cell.contentChanged();
 
         return cell;
     }
 
+    private void applyPseudoClassPolicy(TreeCell<T> cell) {
+        cell.setPseudoClassPolicy(pseudoClassPolicy.get(), pseudoClassCap.get());
+    }
+
+    private void applyPseudoClassPolicy(TreeCaretNode<T> caret) {
+        caret.setPseudoClassPolicy(pseudoClassPolicy.get(), pseudoClassCap.get());
+    }
+
+    private void applyPseudoClassPolicy(TreeGuideNode<T> guide) {
+        guide.setPseudoClassPolicy(pseudoClassPolicy.get(), pseudoClassCap.get());
+    }
+
     private void hoverEffect(MouseEvent mouseEvent, TreeCell<T> cell) {
-        if(cell.isVisible()) {
+        if(cell.isVisible() && cell.getPool().cellType != LOADING_CELL_TYPE && cell.getPool().cellType != PLACEHOLDER_CELL_TYPE) {
             hoveredCell.set(cell);
             hoveredCellHovered.set(true);
             requestLayout();
@@ -1145,6 +1739,8 @@ public class TreeView<T> extends Pane {
             caret = getACaret();
 
         updateCaret(caret, item);
+        if (caret.takeStylesChanged())
+            caret.applyCss();
 
         return caret;
     }
@@ -1152,15 +1748,13 @@ public class TreeView<T> extends Pane {
     private TreeCaretNode<T> getACaret() {
         TreeCaretNode<T> caret = null;
 
-        for (TreeCaretNode<T> allocatedCaret : allocatedCarets) {
-            if (allocatedCaret.getTreeItem() == null) {
-                caret = allocatedCaret;
-                caret.setVisible(true);
-                break;
-            }
+        if(!caretPool.isEmpty()) {
+            caret = caretPool.pop();
+            caret.setVisible(true);
         }
         if(caret == null) {
             allocatedCarets.add(caret = caretFactory.apply(this));
+            applyPseudoClassPolicy(caret);
             cellParent.getChildren().add(caret);
         }
 
@@ -1172,163 +1766,185 @@ public class TreeView<T> extends Pane {
     private void updateCaret(TreeCaretNode<T> caret, TreeItem<T> item) {
         caret.setTreeItem(item);
         caret.setDepth(item.depthProperty.get());
-        caret.setVisibleIndex(item.visibleIndexProperty.get());
+        Integer visibleIndex = item.visibleIndexProperty.get();
+        caret.setVisibleIndex(visibleIndex == null ? -1 : visibleIndex);
         item.settableCaretProperty.set(caret);
 
         caret.updateDisclosureBase(item.valueProperty.get(), item.showChildrenProperty.get(), item, item.currentCellProperty.get());
     }
 
-    private List<TreeGuideNode<T>> getTreeGuideNodesColumn(TreeItem<T> item, int startIndex, int endIndex) {
-        //start with the existing set
-        List<TreeGuideNode<T>> guides = new LinkedList<>(item.currentChildGuidesProperty.get());
+    private TreeGuideNode<T> getAGuide() {
+        TreeGuideNode<T> guide = null;
 
-        if(!item.showChildrenProperty.get() || item.childrenProperty.isEmpty()) {
-            item.currentChildGuidesProperty.clear();
-            return List.of();
+        //find the first unused guide node
+        if(!guidePool.isEmpty())
+            usedGuides.add(guide = guidePool.pop());
+
+        //make one if there are none
+        if(guide == null) {
+            usedGuides.add(guide = guideFactory.apply(this));
+            applyPseudoClassPolicy(guide);
+            guideParent.getChildren().add(guide);
+            guide.setManaged(false);
         }
-        else {
 
-            int itemIndex = item.visibleIndexProperty.get();
-            int firstVisibleGuideIndex = FastMath.max(startIndex, itemIndex+1);
-            //may be more efficient to get parent.children(next index).visibleIndex - 1
-            int lastVisibleGuideIndex = FastMath.min(endIndex, itemIndex+item.visibleDescCountProperty.get());
+//        guide.setManaged(false);
+        return guide;
+    }
 
+    /**
+     * brings the guide grid to this pass' rows. a row that was laid last pass keeps the guides it had, and only when the
+     * tree's structure changed since are they worked out again. guides of rows no longer laid aren't marked with this
+     * pass, so {@link #setUnusedGuidesFromUsedGuides()} takes them back
+     */
+    @SuppressWarnings("unchecked")
+    private void updateGuideGrid(int startIndex, int rowCount, int columns) {
+        long epoch = rootItemProperty.get().structureChanges();
+        boolean structureChanged = epoch != guideGridEpoch;
+
+        int gridSize = rowCount * columns;
+        if (nextGuideGrid.length < gridSize)
+            nextGuideGrid = (TreeGuideNode<T>[]) new TreeGuideNode<?>[FastMath.max(gridSize, nextGuideGrid.length * 2)];
+        else
+            Arrays.fill(nextGuideGrid, 0, gridSize, null);
+        if (nextGuideGridRows.length < rowCount)
+            nextGuideGridRows = (TreeItem<T>[]) new TreeItem<?>[FastMath.max(rowCount, nextGuideGridRows.length * 2)];
 
-            List<TreeItem<T>> children = new ArrayList<>(item.childrenProperty.get());
-            Iterator<TreeItem<T>> iterator = children.iterator();
-            TreeItem<T> nextChild = iterator.next();
+        for (int r = 0; r < rowCount; r++) {
+            TreeItem<T> rowItem = laidRows.item(r);
+            int visibleIndex = rowItem.visibleIndexProperty.get();
+            int depth = rowItem.depthProperty.get();
+            int at = (visibleIndex - startIndex) * columns;
+            nextGuideGridRows[visibleIndex - startIndex] = rowItem;
 
-            //iterate from start to end index
-            int visibleIndex = firstVisibleGuideIndex;
-            int laid = 0;
+            int previousRow = previousGuideRow(rowItem, visibleIndex, structureChanged);
+            if (previousRow >= 0)
+                System.arraycopy(guideGrid, previousRow * guideGridColumns, nextGuideGrid, at, FastMath.min(depth, guideGridColumns));
+            if (previousRow < 0 || structureChanged)
+                updateRowGuides(rowItem, visibleIndex, depth, at);
 
-            while (nextChild.visibleIndexProperty.get() < firstVisibleGuideIndex && iterator.hasNext()) {
-                nextChild = iterator.next();
+            for (int d = 0; d < depth; d++) {
+                TreeGuideNode<T> guide = nextGuideGrid[at + d];
+                if (guide != null)
+                    guide.setLaidOutPass(layoutPass);
             }
+        }
 
-            //collect guides out of range
-            List<TreeGuideNode<T>> nearbyUnusedGuides = new ArrayList<>();
-            for (int i = 0; i < guides.size(); i++) {
-                TreeGuideNode<T> guideNode = guides.get(i);
-                if (guideNode.getVisibleIndex() < firstVisibleGuideIndex || guideNode.getVisibleIndex() > lastVisibleGuideIndex) {
-                    nearbyUnusedGuides.add(guides.remove(i--));
-                }
-            }
+        TreeGuideNode<T>[] grid = guideGrid;
+        guideGrid = nextGuideGrid;
+        nextGuideGrid = grid;
+        TreeItem<T>[] rows = guideGridRows;
+        guideGridRows = nextGuideGridRows;
+        nextGuideGridRows = rows;
+        Arrays.fill(nextGuideGridRows, 0, guideGridRowCount, null);
+        guideGridStart = startIndex;
+        guideGridRowCount = rowCount;
+        guideGridColumns = columns;
+        guideGridEpoch = epoch;
 
+        if (structureChanged)
+            relistColumnGuides(gridSize);
+    }
 
-            //add first guide if needed
-            if(startIndex < endIndex && guides.isEmpty()) {
-                if (!nearbyUnusedGuides.isEmpty())
-                    guides.addFirst(nearbyUnusedGuides.removeLast());
-                else
-                    guides.addFirst(getAGuide());
-            }
+    /**
+     * lists the laid guides under their columns' items again in row order. a structure change moves the indices the
+     * lists were ordered by while the rows are still being gone through, so they can't be kept in order as they go
+     */
+    private void relistColumnGuides(int gridSize) {
+        for (int i = 0; i < gridSize; i++) {
+            TreeGuideNode<T> guide = guideGrid[i];
+            if (guide != null && !guide.getColumnTreeItem().settableChildGuidesProperty.isEmpty())
+                guide.getColumnTreeItem().settableChildGuidesProperty.clear();
+        }
+        for (int i = 0; i < gridSize; i++) {
+            TreeGuideNode<T> guide = guideGrid[i];
+            if (guide != null)
+                guide.getColumnTreeItem().settableChildGuides().add(guide);
+        }
+    }
 
-//            //add unused or new to beginning
-//            if(guides.getFirst().getColumnTreeItem() != null && guides.getFirst().getVisibleIndex() > firstVisibleGuideIndex && guides.getFirst().getVisibleIndex() <= lastVisibleGuideIndex) {
-//                for(int index = guides.getFirst().getVisibleIndex()-1; index >= firstVisibleGuideIndex; index--) {
-//                    if (!nearbyUnusedGuides.isEmpty())
-//                        guides.addFirst(nearbyUnusedGuides.removeLast());
-//                    else
-//                        guides.addFirst(getAGuide());
-//                }
-//            }
-//
-//            //add unused or new to end
-//            if (guides.getLast().getColumnTreeItem() != null && guides.getLast().getVisibleIndex() >= firstVisibleGuideIndex && guides.getLast().getVisibleIndex() < lastVisibleGuideIndex) {
-//                for (int index = guides.getLast().getVisibleIndex()+1; index <= lastVisibleGuideIndex; index++) {
-//                    if (!nearbyUnusedGuides.isEmpty())
-//                        guides.addLast(nearbyUnusedGuides.removeFirst());
-//                    else
-//                        guides.addLast(getAGuide());
-//                }
-//            }
-
-            returnUnusedGuides(nearbyUnusedGuides);
-
-            for (visibleIndex = firstVisibleGuideIndex; visibleIndex <= lastVisibleGuideIndex; visibleIndex++) {
-                TreeGuideNode<T> guide = null;
-
-                //we haven't necessarily reached "nextChild" yet. it is the "next child" that we will reach if at all
-                boolean isChildGuide = visibleIndex == nextChild.visibleIndexProperty.get();
-                int indexUnderItem = visibleIndex - itemIndex - 1;
-                int guideIndex = visibleIndex - firstVisibleGuideIndex;
-
-                boolean isLast = isChildGuide && !iterator.hasNext();
-
-                //TODO: It would be better if we intelligently maintained state for still consistent guides instead of changing state for every guide on every scroll.
-                if(guideIndex >= guides.size()) {
-                    guide = getAGuide();
-                    guides.add(guide);
-                }
-                else {
-                    TreeGuideNode<T> guideAtIndex = guides.get(guideIndex);
-                    if(guideAtIndex.getIndexUnderItem() > indexUnderItem) {
-                        guide = getAGuide();
-                        guides.add(guideIndex, guide);
-                    }
-                    else
-                        guide = guides.get(guideIndex);
-                }
+    /**
+     * where the item's guides were in the grid last pass, or -1 if it wasn't laid then
+     */
+    private int previousGuideRow(TreeItem<T> rowItem, int visibleIndex, boolean structureChanged) {
+        int previousIndex = visibleIndex;
+        if (structureChanged) {
+            //rows above may have opened or closed since, so go by the index its guide was given instead
+            TreeGuideNode<T> guide = rowItem.currentParentGuideProperty.get();
+            if (guide == null || guide.getVisibleIndex() < 0)
+                return -1;
+            previousIndex = guide.getVisibleIndex();
+        }
+        int row = previousIndex - guideGridStart;
+        if (row < 0 || row >= guideGridRowCount || guideGridRows[row] != rowItem)
+            return -1;
+        return row;
+    }
 
+    /**
+     * works out the row's guides from its ancestors, reusing the ones already in its grid row. a column gets a guide
+     * when the row is its child, or when the row is under one of its children that has siblings still to come
+     */
+    private void updateRowGuides(TreeItem<T> rowItem, int visibleIndex, int depth, int at) {
+        TreeItem<T> child = rowItem;
+        for (int d = depth - 1; d >= 0; d--) {
+            TreeItem<T> column = child.parentProperty.get();
+            boolean isRow = child == rowItem;
+            boolean isLast = child.isLastChild();
+
+            if (!isRow && isLast) {
+                //the column's last child is above this row, nothing runs past it
+                nextGuideGrid[at + d] = null;
+            } else {
+                TreeGuideNode<T> guide = nextGuideGrid[at + d];
+                if (guide == null)
+                    nextGuideGrid[at + d] = guide = getAGuide();
+                moveGuideToColumn(guide, column, visibleIndex);
                 guide.setCachedConstraints(null);
                 guide.setVisible(true);
-//                if (guide.getIndexUnderItem() != indexUnderItem)
-                updateGuide(guide, item, indexUnderItem, visibleIndex, isChildGuide ? nextChild : null, isLast);
-
-                if (isChildGuide && iterator.hasNext()) {
-                    nextChild = iterator.next();
-                }
-
-                laid++;
-
-                if(isLast)
-                    break;
+                guide.setRowTreeItem(rowItem);
+                updateGuide(guide, column, visibleIndex - column.visibleIndexProperty.get() - 1, visibleIndex, isRow ? rowItem : null, isRow && isLast);
             }
-
-            //remove stale guides
-            returnUnusedGuides(guides.subList(laid, guides.size()));
-            guides = guides.subList(0, laid);
-//            guides.forEach((g)->g.setVisible(true));
-            item.settableChildGuidesProperty.setAll(guides);
-            return guides;
+            child = column;
         }
-
+        if (depth > 0)
+            rowItem.settableParentGuideProperty.set(nextGuideGrid[at + depth - 1]);
     }
 
-    private TreeGuideNode<T> getAGuide() {
-        TreeGuideNode<T> guide = null;
-
-        //find the first unused guide node
-        if(!guidePool.isEmpty())
-            usedGuides.add(guide = guidePool.pop());
-
-        //make one if there are none
-        if(guide == null) {
-            usedGuides.add(guide = guideFactory.apply(this));
-            guideParent.getChildren().add(guide);
-            guide.setManaged(false);
-        }
+    /**
+     * lists the guide under its column's item, in row order as far as the indices already listed are current
+     */
+    private static <T> void moveGuideToColumn(TreeGuideNode<T> guide, TreeItem<T> column, int visibleIndex) {
+        TreeItem<T> previous = guide.getColumnTreeItem();
+        if (previous == column)
+            return;
+        if (previous != null)
+            previous.settableChildGuidesProperty.remove(guide);
 
-//        guide.setManaged(false);
-        return guide;
+        List<TreeGuideNode<T>> guides = column.settableChildGuides();
+        int i = guides.size();
+        while (i > 0 && (guides.get(i - 1).getVisibleIndex() < 0 || guides.get(i - 1).getVisibleIndex() > visibleIndex))
+            i--;
+        guides.add(i, guide);
     }
 
-    private void returnOneGuide(TreeGuideNode<T> guide) {
+    /**
+     * puts a guide back in the pool, for callers that have already taken it out of usedGuides
+     */
+    private void releaseGuide(TreeGuideNode<T> guide) {
         TreeItem<T> columnItem = guide.getColumnTreeItem();
         if(columnItem!=null)
             columnItem.settableChildGuidesProperty.remove(guide);
         guide.setColumnTreeItem(null);
 
         TreeItem<T> rowItem = guide.getRowTreeItem();
-        if(rowItem != null)
+        if(rowItem != null && rowItem.settableParentGuideProperty.get() == guide)
             rowItem.settableParentGuideProperty.set(null);
         guide.setRowTreeItem(null);
         guide.setCachedConstraints(null);
         guide.setVisible(false);
 //        guide.relocate(0, -guide.getHeight()-50);
 
-        usedGuides.remove(guide);
         guidePool.push(guide);
     }
 
@@ -1338,55 +1954,77 @@ public class TreeView<T> extends Pane {
         guide.setVisibleIndex(visibleIndex);
         guide.setDepth(parentItem.depthProperty.get());
 
-        if(!parentItem.settableChildGuidesProperty.contains(guide))
-            parentItem.settableChildGuidesProperty.add(guide);
-
         List<OrthoDirection> directions
                 = childAtIndex!=null ? isLastGuideUnderItem ? lastChildGuideLines : normalGuideLines : straightGuideLines;
 
         guide.showDirectionsBase(parentItem.valueProperty.get(), directions, parentItem, childAtIndex);
+        if (guide.takeStylesChanged())
+            guide.applyCss();
     }
 
-    private void setUnusedCellsFromUsedCells(List<TreeCell<T>> usedCells) {
-        for (TreeCell<T> cell : allocatedCells) {
-            if (!usedCells.contains(cell)) {
-                if(cell.getTreeItem()!=null)
-                    cell.getTreeItem().settableCellProperty.set(null);
-                cell.setTreeItem(null);
-                cell.setCachedConstraints(null);
-                cell.setVisible(false);
-            }
+    private void setUnusedCellsFromUsedCells() {
+        for (int i = 0; i < allocatedCells.size(); i++) {
+            TreeCell<T> cell = allocatedCells.get(i);
+            //cells without an item are already in their pool
+            if (cell.getLaidOutPass() != layoutPass && cell.getTreeItem() != null)
+                releaseCell(cell);
         }
     }
 
+    private void releaseCell(TreeCell<T> cell) {
+        cell.getTreeItem().settableCellProperty.set(null);
+        cell.setTreeItem(null);
+        cell.setCachedConstraints(null);
+        cell.setVisible(false);
+        cell.getPool().release(cell);
+    }
+
+    private Object cellTypeOf(TreeItem<T> item) {
+        if (item.isLoadingPlaceholder())
+            return LOADING_CELL_TYPE;
+        return cellType == null ? null : cellType.apply(item);
+    }
+
     /**
      * This exists as a convenient alternative to iterating now out of scope items.
      * We don't need to be aware of which branches just closed because we can check everything we didn't re-use this way
-     * @param usedGuides
      */
-    private void setUnusedGuidesFromUsedGuides(Set<TreeGuideNode<T>> usedGuides) {
-        for (TreeGuideNode<T> guide : new HashSet<>(this.usedGuides)) {
-            if (!usedGuides.contains(guide)) {
-                returnOneGuide(guide);
+    private void setUnusedGuidesFromUsedGuides() {
+        for (Iterator<TreeGuideNode<T>> it = usedGuides.iterator(); it.hasNext(); ) {
+            TreeGuideNode<T> guide = it.next();
+            if (guide.getLaidOutPass() != layoutPass) {
+                it.remove();
+                releaseGuide(guide);
             }
         }
     }
 
-    private void returnUnusedGuides(List<TreeGuideNode<T>> unusedGuides) {
-        for (TreeGuideNode<T> guide : unusedGuides) {
-            returnOneGuide(guide);
-        }
+    /**
+     * hands the laid rows' items to visibleItems, unless they are the ones it already has
+     */
+    private void updateVisibleItems() {
+        boolean same = modifiableVisibleItems.size() == laidRows.size();
+        for (int r = 0; same && r < laidRows.size(); r++)
+            same = modifiableVisibleItems.get(r) == laidRows.item(r);
+        if (same)
+            return;
+
+        for (int r = 0; r < laidRows.size(); r++)
+            laidItems.add(laidRows.item(r));
+        modifiableVisibleItems.setAll(laidItems);
+        laidItems.clear();
     }
 
 
-    private void setUnusedCaretsFromUsedCarets(List<TreeCaretNode<T>> usedCarets) {
-        for (TreeCaretNode<T> caret : allocatedCarets) {
-            if (!usedCarets.contains(caret)) {
-                if(caret.getTreeItem()!=null)
-                    caret.getTreeItem().settableCaretProperty.set(null);
+    private void setUnusedCaretsFromUsedCarets() {
+        for (int i = 0; i < allocatedCarets.size(); i++) {
+            TreeCaretNode<T> caret = allocatedCarets.get(i);
+            if (caret.getLaidOutPass() != layoutPass && caret.getTreeItem() != null) {
+                caret.getTreeItem().settableCaretProperty.set(null);
                 caret.setTreeItem(null);
                 caret.setCachedConstraints(null);
                 caret.setVisible(false);
+                caretPool.push(caret);
             }
         }
     }
@@ -1400,28 +2038,86 @@ public class TreeView<T> extends Pane {
         return item.indexInParent() % 2.0;
     }
 
+    /**
+     * how long a wheel scroll eases in over. zero, the default, moves through the scroll bar at once
+     */
     public void setTweenTransitionTime(Duration tweenTransitionTime) {
-        this.tweenTransitionTimeNano = tweenTransitionTime.getNano();
+        this.tweenTransitionTimeNano = tweenTransitionTime.toNanos();
     }
     public Duration getTweenTransitionTime() {
         return  Duration.ofNanos(this.tweenTransitionTimeNano);
     }
 
+    /**
+     * how long a layout pass may spend binding cells. rows it has no budget left for show placeholders until a later
+     * pass binds them, see {@link #viewportSettled}. zero, the default, binds every row in the pass that shows it
+     */
+    public void setBindingBudget(Duration bindingBudget) {
+        this.bindingBudgetNano = bindingBudget.toNanos();
+        requestLayout();
+    }
+    public Duration getBindingBudget() {
+        return Duration.ofNanos(this.bindingBudgetNano);
+    }
+
+    public void setOverscanBudget(Duration overscanBudget) {
+        this.overscanBudgetNano = overscanBudget.toNanos();
+    }
+    public Duration getOverscanBudget() {
+        return Duration.ofNanos(this.overscanBudgetNano);
+    }
+
     public TreeItem<T> setRootItem(T someItem) {
         TreeItem<T> root = new TreeItem<>(someItem);
+        root.childrenProviderProperty.set(childrenProvider.get());
+        setRoot(root, null);
+        return root;
+    }
+
+    /**
+     * shows a {@link TreeModel} instead of a tree of items. tree items are only made for the rows being laid out and the
+     * ancestors above them, and let go once they scroll away, so keep hold of nodes rather than items.
+     * returns the item for the model's root.
+     * views showing one model share its expansion too. wrap it in a {@link ViewExpansionModel} per view to open
+     * branches in one view without the others. only models can be shared this way, since an item keeps its own
+     * expansion and the caret, guides and cell showing it, so a tree of items belongs to one view.
+     */
+    public TreeItem<T> setModel(TreeModel<T> model) {
+        ModelItems<T> items = new ModelItems<>(model, () -> {
+            //model changes don't pass through the tree items, so the root doesn't count them
+            guideGridEpoch = -1;
+            requestLayout();
+        });
+        TreeItem<T> root = items.materialize(model.root());
+        setRoot(root, items);
+        return root;
+    }
+
+    private void setRoot(TreeItem<T> root, ModelItems<T> items) {
+        if(modelItems != null)
+            modelItems.dispose();
+        modelItems = items;
         rootItemProperty.set(root);
+        guideGridEpoch = -1;
         scrollCenterItem.set(root);
         modifiableVisibleItems.clear();
         centerItemScrollOffset.set(0);
-        scrollTweenFrom = 0;
-        scrollTweenToTimeNano = System.nanoTime();
-        return root;
+        pendingScrollIndex = Double.NaN;
+        stopScrollAnimation();
     }
 
     private TreeCell<T> defaultCellFactory(TreeView<T> tTreeView) {
         return new BasicTreeCell<>();
     }
 
+    private TreeCell<T> defaultLoadingCellFactory(TreeView<T> tTreeView) {
+        return new BasicLoadingTreeCell<>();
+    }
+
+    private TreeCell<T> defaultPlaceholderCellFactory(TreeView<T> tTreeView) {
+        return new BasicPlaceholderTreeCell<>();
+    }
+
     private TreeCaretNode<T> defaultCaretFactory(TreeView<T> tTreeView) {
         return new BasicTreeCaret<>();
     }
@@ -1433,14 +2129,94 @@ public class TreeView<T> extends Pane {
     public Function<TreeView<T>, TreeCell<T>> getCellFactory() {
         return this.cellFactory;
     }
+    /**
+     * makes the rows of the plain cell type. null restores the basic cells
+     */
     public void setCellFactory(Function<TreeView<T>, TreeCell<T>> cellFactory) {
-        this.cellFactory = cellFactory;
+        this.cellFactory = cellFactory == null ? this::defaultCellFactory : cellFactory;
         if(this.hoverCopyCell != null) {
             getChildren().remove(this.hoverCopyCell);
             this.hoverCopyCell = null;
         }
     }
 
+    public Function<TreeView<T>, TreeCell<T>> getLoadingCellFactory() {
+        return this.loadingCellFactory;
+    }
+    /**
+     * makes the rows shown under items whose {@link ChildrenProvider} is still fetching. null restores the basic cells
+     */
+    public void setLoadingCellFactory(Function<TreeView<T>, TreeCell<T>> loadingCellFactory) {
+        this.loadingCellFactory = loadingCellFactory == null ? this::defaultLoadingCellFactory : loadingCellFactory;
+    }
+
+    public Function<TreeView<T>, TreeCell<T>> getPlaceholderCellFactory() {
+        return this.placeholderCellFactory;
+    }
+    /**
+     * makes the rows shown in place of cells a layout pass had no binding budget left for. they should be cheap to bind,
+     * their updateVisuals gets the item they stand in for. null restores the basic cells
+     */
+    public void setPlaceholderCellFactory(Function<TreeView<T>, TreeCell<T>> placeholderCellFactory) {
+        this.placeholderCellFactory = placeholderCellFactory == null ? this::defaultPlaceholderCellFactory : placeholderCellFactory;
+    }
+
+    public Function<TreeItem<T>, Object> getCellType() {
+        return this.cellType;
+    }
+    /**
+     * sorts rows into cell types, keyed on the item or its value. each type gets its cells from its own factory, see
+     * {@link #setCellFactory(Object, Function)}, and recycles them in its own pool, so a cell only ever shows items of
+     * one type. equal keys are the same type, and null is the type made by the plain cell factory.
+     */
+    public void setCellType(Function<TreeItem<T>, Object> cellType) {
+        this.cellType = cellType;
+        requestLayout();
+    }
+
+    /**
+     * the factory for a cell type, falling back to the plain cell factory for types without one
+     */
+    public Function<TreeView<T>, TreeCell<T>> getCellFactory(Object cellType) {
+        if (cellType == LOADING_CELL_TYPE)
+            return loadingCellFactory;
+        if (cellType == PLACEHOLDER_CELL_TYPE)
+            return placeholderCellFactory;
+        return typedCellFactories.getOrDefault(cellType, cellFactory);
+    }
+    /**
+     * sets the factory for a cell type. null drops it, so the type's rows fall back to the plain cell factory, or to the
+     * basic cells for the plain, loading and placeholder types themselves
+     */
+    public void setCellFactory(Object cellType, Function<TreeView<T>, TreeCell<T>> cellFactory) {
+        if (cellType == null)
+            setCellFactory(cellFactory);
+        else if (cellType == LOADING_CELL_TYPE)
+            setLoadingCellFactory(cellFactory);
+        else if (cellType == PLACEHOLDER_CELL_TYPE)
+            setPlaceholderCellFactory(cellFactory);
+        else {
+            if (cellFactory == null)
+                typedCellFactories.remove(cellType);
+            else
+                typedCellFactories.put(cellType, cellFactory);
+            if (hoverCopyCell != null && cellType.equals(hoverCopyCellType)) {
+                getChildren().remove(hoverCopyCell);
+                hoverCopyCell = null;
+            }
+        }
+    }
+
+    /**
+     * how many cells each cell type has made, how many are free, and how often they were reused, for sizing pools
+     */
+    public List<CellPoolStatistics> getCellPoolStatistics() {
+        List<CellPoolStatistics> statistics = new ArrayList<>();
+        for (CellPool<T> pool : cellPools.values())
+            statistics.add(pool.statistics());
+        return statistics;
+    }
+
     public Function<TreeView<T>, TreeCaretNode<T>> getCaretFactory() {
         return this.caretFactory;
     }
@@ -0,0 +1,385 @@
+package org.yetyman.controls.treeview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * one view's expansion of a {@link TreeModel} other views may be showing too. structure and values are read from the
+ * shared model, while which nodes are expanded and the row counts and positions that follow from it are kept here,
+ * around thirty bytes a node, so each view can open its own branches of one tree.
+ * every node starts collapsed. changes to the shared model's structure and values reach this model's listeners, its
+ * expansion doesn't.
+ * a shared model that reports added and removed children, as {@link ArrayTreeModel} does, costs O(depth * log
+ * siblings) a change. any other has the changed node's children counted again each time.
+ * sharing needs a model. a tree of {@link TreeItem}s keeps its expansion, caret, guides and cells on the items
+ * themselves, so views showing items each need their own tree.
+ */
+public class ViewExpansionModel<T> implements TreeModel<T> {
+    private static final int NONE = -1;
+    private static final int UNKNOWN = -1;
+
+    private final TreeModel<T> shared;
+    private final BitSet expanded = new BitSet();
+
+    /**
+     * rows the node's descendants take while it is expanded, whether or not it is, or UNKNOWN until one is needed.
+     * an expanded node's count is known whenever its expanded parent's is, so a change carried up through the expanded
+     * ancestors can stop at the first unknown one, the same as it stops at the first collapsed one.
+     */
+    private int[] expandedRows = new int[0];
+
+    /**
+     * a fenwick tree per node over the rows each of its children takes here, by index among them, so rows before a
+     * child and the child at a row are O(log siblings). made from the children the first time it's needed, and
+     * dropped when its node's count is, or a child other than the last is removed, to be made again.
+     * one exists only while its node's count is known, so the changes carried up keep it current.
+     */
+    private int[][] childRowTrees = new int[0][];
+    private int[] childRowCounts = new int[0];
+
+    //rows, trusted while the node's stamp matches epoch. see ArrayTreeModel
+    private int[] visibleIndexes = new int[0];
+    private int[] stamps = new int[0];
+    private int epoch = 1;
+    private int[] stack = new int[16];
+    //expandedRows' own, since settlePosition counts while it has stack in use
+    private int[] countStack = new int[16];
+    private int[] uncounted = new int[16];
+
+    private final List<IntConsumer> listeners = new ArrayList<>();
+    private final IntConsumer sharedListener = this::sharedChanged;
+    private final StructureListener structureListener = new StructureListener() {
+        @Override
+        public void childAdded(int parent, int child) {
+            sharedChildAdded(parent, child);
+        }
+
+        @Override
+        public void childRemoving(int parent, int child) {
+            sharedChildRemoving(parent, child);
+        }
+    };
+    //whether the shared model reports its children, so its changed nodes needn't be counted again
+    private boolean structureReported = false;
+
+    public ViewExpansionModel(TreeModel<T> shared) {
+        this.shared = shared;
+    }
+
+    public TreeModel<T> getShared() {
+        return shared;
+    }
+
+    private void ensureCapacity(int node) {
+        if (node < expandedRows.length)
+            return;
+        int capacity = Math.max(node + 1, expandedRows.length * 2);
+        int old = expandedRows.length;
+        expandedRows = Arrays.copyOf(expandedRows, capacity);
+        Arrays.fill(expandedRows, old, capacity, UNKNOWN);
+        childRowTrees = Arrays.copyOf(childRowTrees, capacity);
+        childRowCounts = Arrays.copyOf(childRowCounts, capacity);
+        visibleIndexes = Arrays.copyOf(visibleIndexes, capacity);
+        stamps = Arrays.copyOf(stamps, capacity);
+    }
+
+    /**
+     * counts an unknown node without recursing, since expanded chains get deep enough to overflow the stack. the
+     * unknown expanded nodes under it are collected top down, then counted in reverse so each comes after its children
+     */
+    private int expandedRows(int node) {
+        ensureCapacity(node);
+        if (expandedRows[node] != UNKNOWN)
+            return expandedRows[node];
+
+        int top = 0;
+        int found = 0;
+        countStack = push(countStack, top++, node);
+        while (top > 0) {
+            int n = countStack[--top];
+            uncounted = push(uncounted, found++, n);
+            for (int c = shared.firstChild(n); c != NONE; c = shared.nextSibling(c)) {
+                ensureCapacity(c);
+                if (expanded.get(c) && expandedRows[c] == UNKNOWN)
+                    countStack = push(countStack, top++, c);
+            }
+        }
+        while (found > 0) {
+            int n = uncounted[--found];
+            int rows = 0;
+            for (int c = shared.firstChild(n); c != NONE; c = shared.nextSibling(c))
+                rows += 1 + (expanded.get(c) ? expandedRows[c] : 0);
+            expandedRows[n] = rows;
+        }
+        return expandedRows[node];
+    }
+
+    //drops every count, for when changes to the shared model may have been missed
+    private void forgetCounts() {
+        Arrays.fill(expandedRows, UNKNOWN);
+        Arrays.fill(childRowTrees, null);
+        epoch++;
+    }
+
+    private int[] childRowTree(int node) {
+        expandedRows(node);
+        if (childRowTrees[node] == null) {
+            int[] tree = new int[4];
+            int count = 0;
+            for (int c = shared.firstChild(node); c != NONE; c = shared.nextSibling(c))
+                tree = Fenwick.append(tree, count++, 1 + visibleDescendantCount(c));
+            childRowTrees[node] = tree;
+            childRowCounts[node] = count;
+        }
+        return childRowTrees[node];
+    }
+
+    /**
+     * adds delta to the rows under node, then to each ancestor for as long as the one below it is expanded
+     */
+    private void rowsChanged(int node, int delta) {
+        epoch++;
+        for (int n = node; n != NONE; n = shared.parent(n)) {
+            ensureCapacity(n);
+            if (expandedRows[n] == UNKNOWN)
+                break;
+            expandedRows[n] += delta;
+            if (!expanded.get(n))
+                break;
+            childRowsChanged(n, delta);
+        }
+    }
+
+    //the rows the node takes under its parent moved by delta
+    private void childRowsChanged(int node, int delta) {
+        int p = shared.parent(node);
+        if (p == NONE)
+            return;
+        ensureCapacity(p);
+        if (childRowTrees[p] != null)
+            Fenwick.add(childRowTrees[p], childRowCounts[p], shared.indexInParent(node), delta);
+    }
+
+    private void sharedChildAdded(int parent, int child) {
+        ensureCapacity(Math.max(parent, child));
+        if (expandedRows[parent] == UNKNOWN)
+            return;
+        if (childRowTrees[parent] != null) {
+            int count = childRowCounts[parent];
+            if (shared.indexInParent(child) == count) {
+                childRowTrees[parent] = Fenwick.append(childRowTrees[parent], count, 1);
+                childRowCounts[parent]++;
+            } else
+                childRowTrees[parent] = null;
+        }
+        //new children start collapsed here, so each is one row
+        rowsChanged(parent, 1);
+    }
+
+    private void sharedChildRemoving(int parent, int child) {
+        ensureCapacity(Math.max(parent, child));
+        if (expandedRows[parent] == UNKNOWN)
+            return;
+        int rows = 1 + visibleDescendantCount(child);
+        if (childRowTrees[parent] != null) {
+            //the last entry can just be left out, any other would leave the ones after it a place off
+            if (shared.indexInParent(child) == childRowCounts[parent] - 1)
+                childRowCounts[parent]--;
+            else
+                childRowTrees[parent] = null;
+        }
+        rowsChanged(parent, -rows);
+    }
+
+    /**
+     * the reported children have been carried already. otherwise the changed node's rows are counted again, since its
+     * children could be different ones now
+     */
+    private void sharedChanged(int node) {
+        epoch++;
+        if (node == NONE) {
+            forgetCounts();
+        } else if (!structureReported) {
+            ensureCapacity(node);
+            int before = expandedRows[node];
+            childRowTrees[node] = null;
+            if (before != UNKNOWN) {
+                expandedRows[node] = UNKNOWN;
+                int after = expandedRows(node);
+                if (after != before && expanded.get(node) && shared.parent(node) != NONE) {
+                    childRowsChanged(node, after - before);
+                    rowsChanged(shared.parent(node), after - before);
+                }
+            }
+        }
+        fireChanged(node);
+    }
+
+    private void fireChanged(int node) {
+        for (IntConsumer listener : List.copyOf(listeners))
+            listener.accept(node);
+    }
+
+    @Override
+    public int root() {
+        return shared.root();
+    }
+
+    @Override
+    public int parent(int node) {
+        return shared.parent(node);
+    }
+
+    @Override
+    public int firstChild(int node) {
+        return shared.firstChild(node);
+    }
+
+    @Override
+    public int lastChild(int node) {
+        return shared.lastChild(node);
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return shared.nextSibling(node);
+    }
+
+    @Override
+    public int previousSibling(int node) {
+        return shared.previousSibling(node);
+    }
+
+    @Override
+    public int indexInParent(int node) {
+        return shared.indexInParent(node);
+    }
+
+    @Override
+    public int childAt(int node, int index) {
+        return shared.childAt(node, index);
+    }
+
+    @Override
+    public T value(int node) {
+        return shared.value(node);
+    }
+
+    @Override
+    public boolean isExpanded(int node) {
+        return expanded.get(node);
+    }
+
+    @Override
+    public void setExpanded(int node, boolean expand) {
+        if (expanded.get(node) == expand)
+            return;
+        //counted before it's expanded, so the ancestors get the same count the node keeps
+        int rows = expandedRows(node);
+        expanded.set(node, expand);
+        if (shared.parent(node) != NONE) {
+            childRowsChanged(node, expand ? rows : -rows);
+            rowsChanged(shared.parent(node), expand ? rows : -rows);
+        } else
+            epoch++;
+        fireChanged(node);
+    }
+
+    @Override
+    public int depth(int node) {
+        return shared.depth(node);
+    }
+
+    @Override
+    public int descendantCount(int node) {
+        return shared.descendantCount(node);
+    }
+
+    @Override
+    public int visibleDescendantCount(int node) {
+        return expanded.get(node) ? expandedRows(node) : 0;
+    }
+
+    @Override
+    public int visibleIndex(int node) {
+        if (!isVisible(node))
+            return -1;
+        settlePosition(node);
+        return visibleIndexes[node];
+    }
+
+    /**
+     * a node's row is its parent's, plus one for the parent, plus the rows its earlier siblings take here
+     */
+    private void settlePosition(int node) {
+        int top = 0;
+        for (int n = node; n != NONE && !settled(n); n = shared.parent(n))
+            stack = push(stack, top++, n);
+
+        while (top > 0) {
+            int n = stack[--top];
+            int p = shared.parent(n);
+            if (p != NONE)
+                visibleIndexes[n] = visibleIndexes[p] + 1 + Fenwick.sumBefore(childRowTree(p), shared.indexInParent(n));
+            else
+                visibleIndexes[n] = 0;
+            stamps[n] = epoch;
+        }
+    }
+
+    private boolean settled(int node) {
+        ensureCapacity(node);
+        return stamps[node] == epoch;
+    }
+
+    private static int[] push(int[] stack, int at, int node) {
+        if (at == stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[at] = node;
+        return stack;
+    }
+
+    /**
+     * descends from the root, picking each level's child from the rows its siblings take. see ArrayTreeModel
+     */
+    @Override
+    public int nodeAtVisibleIndex(int visibleIndex) {
+        int node = root();
+        int remaining = Math.clamp(visibleIndex, 0, visibleDescendantCount(node));
+        while (remaining > 0) {
+            int[] rows = childRowTree(node);
+            int index = Fenwick.countWithin(rows, childRowCounts[node], remaining - 1);
+            remaining -= 1 + Fenwick.sumBefore(rows, index);
+            node = shared.childAt(node, index);
+        }
+        return node;
+    }
+
+    /**
+     * the shared model is only listened to while this has listeners, so a view that lets go of this lets go of both
+     */
+    @Override
+    public void addListener(IntConsumer changedNode) {
+        if (listeners.isEmpty()) {
+            structureReported = shared.addStructureListener(structureListener);
+            shared.addListener(sharedListener);
+            //counts taken before now weren't kept up with the shared model
+            forgetCounts();
+        }
+        listeners.add(changedNode);
+    }
+
+    @Override
+    public void removeListener(IntConsumer changedNode) {
+        if (listeners.remove(changedNode) && listeners.isEmpty()) {
+            shared.removeListener(sharedListener);
+            shared.removeStructureListener(structureListener);
+            structureReported = false;
+            //changes missed meanwhile could have made any count stale
+            forgetCounts();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.yetyman.controls.treeview;
+
+import javafx.scene.Node;
+import javafx.scene.shape.Rectangle;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.yetyman.controls.treeview.TreeViewChecks.*;
+
+/**
+ * binds cells whose computed content returns, throws an exception and throws an error, and checks each cell ends up
+ * showing its result or its failure rather than what it showed meanwhile
+ */
+public class CellContentTest {
+    private static final double LOADING = 16;
+    private static final double COMPUTED = 30;
+    private static final double FAILED = 24;
+
+    public static void main(String[] args) throws Exception {
+        start();
+        TreeView<String> view = fx(() -> {
+            TreeView<String> v = new TreeView<>();
+            v.setCellFactory(CellContentTest::computingCell);
+            TreeItem<String> root = v.setRootItem("root");
+            for (String value : new String[]{"computed", "exception", "error"})
+                root.childrenProperty.add(new TreeItem<>(value));
+            root.showChildrenProperty.set(true);
+            show(v, 300, 400);
+            return v;
+        });
+        Thread.sleep(300);
+
+        Map<String, Double> heights = fx(() -> {
+            view.layout();
+            Map<String, Double> shown = new HashMap<>();
+            for (Node node : view.lookupAll("*"))
+                if (node instanceof TreeCell<?> cell && cell.isVisible() && cell.getTreeItem() != null)
+                    shown.put(String.valueOf(cell.getTreeItem().valueProperty.get()), cell.getContent().getBoundsInLocal().getHeight());
+            return shown;
+        });
+        check(heights.get("computed") == COMPUTED, "computed content shown " + heights);
+        check(heights.get("exception") == FAILED, "an exception replaced the loading content " + heights);
+        check(heights.get("error") == FAILED, "an error replaced the loading content " + heights);
+        finish("CellContentTest");
+    }
+
+    private static TreeCell<String> computingCell(TreeView<String> view) {
+        return new TreeCell<>() {
+            @Override
+            public void updateVisuals(String value, TreeItem<String> wrapper) {
+                setContent(new Rectangle(40, LOADING));
+                computeContent(v -> switch (v) {
+                    case "exception" -> throw new IllegalStateException("no content for you");
+                    case "error" -> throw new LinkageError("no content for you either");
+                    default -> COMPUTED;
+                }, height -> setContent(new Rectangle(40, height)), failure -> setContent(new Rectangle(40, FAILED)));
+            }
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package org.yetyman.controls.treeview;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.yetyman.controls.treeview.TreeViewChecks.*;
+
+/**
+ * expands items whose provider blocks, throws an exception and throws an error, and checks the placeholder comes and goes
+ */
+public class ChildrenProviderTest {
+    private static TreeItem<String> root;
+
+    public static void main(String[] args) throws Exception {
+        start();
+        CountDownLatch release = new CountDownLatch(1);
+        TreeView<String> view = fx(() -> {
+            TreeView<String> v = new TreeView<>();
+            v.setCellFactory(TreeViewChecks::plainCell);
+            v.setLoadingCellFactory(TreeViewChecks::plainCell);
+            v.childrenProvider.set(value -> switch (value) {
+                case "root" -> List.of("slow", "exception", "error");
+                case "slow" -> {
+                    release.await();
+                    yield List.of("slow.0", "slow.1");
+                }
+                case "exception" -> throw new IllegalStateException("no children for you");
+                case "error" -> throw new LinkageError("no children for you either");
+                default -> List.of();
+            });
+            root = v.setRootItem("root");
+            root.showChildrenProperty.set(true);
+            show(v, 300, 400);
+            return v;
+        });
+        Thread.sleep(300);
+
+        fx(() -> {
+            check(root.childrenProperty.size() == 3, "root loaded " + root.childrenProperty);
+            for (TreeItem<String> child : root.childrenProperty)
+                child.showChildrenProperty.set(true);
+            TreeItem<String> slow = root.childrenProperty.get(0);
+            check(slow.childrenProperty.size() == 1 && slow.childrenProperty.get(0).isLoadingPlaceholder(), "slow shows its placeholder");
+            check(!slow.hasChildren(), "the placeholder isn't a child");
+            check(slow.mayHaveChildren(), "loading keeps the caret");
+            return null;
+        });
+        Thread.sleep(300);
+
+        fx(() -> {
+            for (TreeItem<String> failed : root.childrenProperty.subList(1, 3)) {
+                check(!failed.showChildrenProperty.get(), failed.valueProperty.get() + " collapsed after its fetch threw");
+                check(failed.childrenProperty.isEmpty(), failed.valueProperty.get() + " dropped its placeholder");
+                check(failed.mayHaveChildren(), failed.valueProperty.get() + " can be expanded again");
+            }
+            release.countDown();
+            return null;
+        });
+        Thread.sleep(300);
+
+        fx(() -> {
+            TreeItem<String> slow = root.childrenProperty.get(0);
+            check(slow.childrenProperty.size() == 2 && slow.childrenProperty.stream().noneMatch(TreeItem::isLoadingPlaceholder), "slow swapped its placeholder for its children");
+            check(root.visibleDescCountProperty.get() == 5, "rows after loading " + root.visibleDescCountProperty.get());
+            view.layout();
+            return null;
+        });
+        finish("ChildrenProviderTest");
+    }
+}
@@ -0,0 +1,133 @@
+package org.yetyman.controls.treeview;
+
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.yetyman.controls.treeview.TreeViewChecks.*;
+
+/**
+ * changes the structure of one view's tree, and of another view's tree in between, and checks the first view's guides
+ * against a view given a fresh copy of its tree each step
+ */
+public class GuideGridTest {
+    private static final Random random = new Random(11);
+    private static int named = 0;
+
+    public static void main(String[] args) throws Exception {
+        start();
+        TreeView<String> view = fx(() -> newView(build()));
+        TreeView<String> other = fx(() -> newView(build()));
+        TreeItem<String> root = fx(() -> view.visibleItems.get(0));
+        TreeItem<String> otherRoot = fx(() -> other.visibleItems.get(0));
+
+        for (int step = 0; step < 300; step++) {
+            int s = step;
+            fx(() -> {
+                change(root);
+                if (random.nextBoolean())
+                    change(otherRoot);
+                if (random.nextInt(4) == 0)
+                    return null;//a second change before the view lays out again
+
+                view.requestLayout();
+                view.layout();
+                other.requestLayout();
+                other.layout();
+                TreeView<String> fresh = newView(copy(root));
+                Set<String> laid = new HashSet<>();
+                for (TreeItem<String> item : view.visibleItems)
+                    laid.add(item.valueProperty.get());
+                laid.retainAll(fresh.visibleItems.stream().map(i -> i.valueProperty.get()).toList());
+                Set<String> shown = guides(view, laid);
+                Set<String> expected = guides(fresh, laid);
+                check(shown.equals(expected), "step " + s + " guides\n  " + shown + "\nexpected\n  " + expected);
+                fresh.getScene().getWindow().hide();
+                return null;
+            });
+        }
+        finish("GuideGridTest");
+    }
+
+    private static TreeView<String> newView(TreeItem<String> tree) {
+        TreeView<String> v = new TreeView<>();
+        v.setCellFactory(TreeViewChecks::plainCell);
+        TreeItem<String> root = v.setRootItem(tree.valueProperty.get());
+        root.childrenProperty.setAll(new ArrayList<>(tree.childrenProperty));
+        root.showChildrenProperty.set(true);
+        show(v, 300, 800);
+        return v;
+    }
+
+    private static TreeItem<String> build() {
+        TreeItem<String> root = new TreeItem<>("root " + named++);
+        List<TreeItem<String>> items = new ArrayList<>(List.of(root));
+        for (int i = 0; i < 40; i++) {
+            TreeItem<String> parent = items.get(random.nextInt(items.size()));
+            TreeItem<String> child = new TreeItem<>("item " + named++);
+            parent.childrenProperty.add(child);
+            parent.showChildrenProperty.set(random.nextInt(5) > 0);
+            items.add(child);
+        }
+        return root;
+    }
+
+    private static TreeItem<String> copy(TreeItem<String> item) {
+        TreeItem<String> copy = new TreeItem<>(item.valueProperty.get());
+        for (TreeItem<String> child : item.childrenProperty)
+            copy.childrenProperty.add(copy(child));
+        copy.showChildrenProperty.set(item.showChildrenProperty.get());
+        return copy;
+    }
+
+    /**
+     * adds, removes, moves, expands or collapses a random item under root
+     */
+    private static void change(TreeItem<String> root) {
+        List<TreeItem<String>> items = new ArrayList<>();
+        collect(root, items);
+        TreeItem<String> item = items.get(random.nextInt(items.size()));
+        switch (random.nextInt(4)) {
+            case 0 -> item.childrenProperty.add(random.nextInt(item.childrenProperty.size() + 1), new TreeItem<>("item " + named++));
+            case 1 -> {
+                if (item != root)
+                    item.parentProperty.get().childrenProperty.remove(item);
+            }
+            case 2 -> {
+                TreeItem<String> to = items.get(random.nextInt(items.size()));
+                boolean under = false;
+                for (TreeItem<String> i = to; i != null; i = i.parentProperty.get())
+                    under |= i == item;
+                if (item != root && !under) {
+                    item.parentProperty.get().childrenProperty.remove(item);
+                    to.childrenProperty.add(random.nextInt(to.childrenProperty.size() + 1), item);
+                }
+            }
+            default -> item.showChildrenProperty.set(!item.showChildrenProperty.get());
+        }
+    }
+
+    private static void collect(TreeItem<String> item, List<TreeItem<String>> into) {
+        into.add(item);
+        for (TreeItem<String> child : item.childrenProperty)
+            collect(child, into);
+    }
+
+    /**
+     * the shown guides of the given rows, as row, column and directions
+     */
+    private static Set<String> guides(TreeView<String> view, Set<String> rows) {
+        Set<String> guides = new TreeSet<>();
+        for (Node node : view.lookupAll("*")) {
+            if (node instanceof TreeGuideNode<?> guide && guide.isVisible() && guide.getRowTreeItem() != null
+                    && rows.contains(String.valueOf(guide.getRowTreeItem().valueProperty.get())))
+                guides.add(guide.getRowTreeItem().valueProperty.get() + "/" + guide.getColumnTreeItem().valueProperty.get() + " " + guide.currentDirections.get());
+        }
+        return guides;
+    }
+}
@@ -0,0 +1,60 @@
+package org.yetyman.controls.treeview;
+
+import java.lang.management.ManagementFactory;
+
+import static org.yetyman.controls.treeview.TreeViewChecks.*;
+
+/**
+ * measures what layout passes allocate on the fx thread once the view has settled. passes over the same rows should
+ * allocate next to nothing. a fling of small scrolls mostly moves the laid rows, and what its passes allocate is
+ * javafx's own visibility, list change and css work for the rows coming into view, not buffers of the view's
+ */
+public class LayoutAllocationTest {
+    private static final int PASSES = 2000;
+    private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        start();
+        TreeView<String> view = fx(() -> {
+            TreeView<String> v = new TreeView<>();
+            v.setCellFactory(TreeViewChecks::plainCell);
+            TreeItem<String> root = v.setRootItem("root");
+            for (int i = 0; i < 2000; i++) {
+                TreeItem<String> child = new TreeItem<>("child " + i);
+                for (int j = 0; j < 5; j++)
+                    child.childrenProperty.add(new TreeItem<>("child " + i + "." + j));
+                child.showChildrenProperty.set(true);
+                root.childrenProperty.add(child);
+            }
+            root.showChildrenProperty.set(true);
+            show(v, 300, 400);
+            return v;
+        });
+
+        long samePass = fx(() -> bytesPerPass(() -> {
+            view.requestLayout();
+            view.layout();
+        }));
+        long flingPass = fx(() -> bytesPerPass(() -> {
+            view.scrollPx(-7);
+            view.layout();
+        }));
+
+        System.out.println("bytes a pass: same rows " + samePass + ", fling " + flingPass);
+        check(samePass < 1024, "a pass over the same rows allocated " + samePass + " bytes");
+        check(flingPass < 8192, "a fling frame allocated " + flingPass + " bytes");
+        finish("LayoutAllocationTest");
+    }
+
+    /**
+     * runs the passes once to settle the view and its pools, then again measuring
+     */
+    private static long bytesPerPass(Runnable pass) {
+        for (int i = 0; i < PASSES; i++)
+            pass.run();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < PASSES; i++)
+            pass.run();
+        return (threads.getCurrentThreadAllocatedBytes() - before) / PASSES;
+    }
+}
@@ -0,0 +1,67 @@
+package org.yetyman.controls.treeview;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.yetyman.controls.treeview.TreeViewChecks.*;
+
+/**
+ * scrolls a view with padding a few pixels a frame, and checks the rows still cover the area inside the insets whether
+ * the frame moved the laid rows or laid them out again
+ */
+public class PaddedScrollTest {
+    public static void main(String[] args) throws Exception {
+        start();
+        TreeView<String> view = fx(() -> {
+            TreeView<String> v = new TreeView<>();
+            v.setCellFactory(TreeViewChecks::plainCell);
+            v.setPadding(new Insets(30, 0, 40, 0));
+            TreeItem<String> root = v.setRootItem("root");
+            for (int i = 0; i < 500; i++)
+                root.childrenProperty.add(new TreeItem<>("child " + i));
+            root.showChildrenProperty.set(true);
+            show(v, 300, 400);
+            return v;
+        });
+
+        int translated = fx(() -> {
+            int moved = 0;
+            for (int frame = 0; frame < 300; frame++) {
+                view.scrollPx(-7);
+                if (!view.isNeedsLayout())
+                    moved++;
+                view.layout();
+                checkCovered(view, frame);
+            }
+            return moved;
+        });
+        System.out.println("frames that moved the laid rows " + translated);
+        check(translated > 150, "only " + translated + " of 300 frames moved the laid rows");
+        finish("PaddedScrollTest");
+    }
+
+    private static void checkCovered(TreeView<String> view, int frame) {
+        Insets insets = view.getInsets();
+        double top = insets.getTop();
+        double bottom = view.getHeight() - insets.getBottom();
+
+        List<Bounds> rows = new ArrayList<>();
+        for (Node node : view.lookupAll("*"))
+            if (node instanceof TreeCell<?> cell && cell.isVisible() && cell.getTreeItem() != null)
+                rows.add(view.sceneToLocal(cell.localToScene(cell.getLayoutBounds())));
+        rows.sort(Comparator.comparingDouble(Bounds::getMinY));
+
+        double covered = top;
+        for (Bounds row : rows) {
+            if (row.getMinY() > covered + 0.5)
+                break;
+            covered = Math.max(covered, row.getMaxY());
+        }
+        check(covered >= bottom - 0.5, "frame " + frame + " rows cover " + top + " to " + covered + " of " + bottom);
+    }
+}
@@ -0,0 +1,59 @@
+package org.yetyman.controls.treeview;
+
+import javafx.css.PseudoClass;
+
+import static org.yetyman.controls.treeview.TreeViewChecks.*;
+
+/**
+ * changes the pseudo class policy while cells are still bound to items a collapse just hid
+ */
+public class PseudoClassPolicyTest {
+    private static TreeItem<String> root;
+
+    public static void main(String[] args) throws Exception {
+        start();
+        TreeView<String> view = fx(() -> {
+            TreeView<String> v = new TreeView<>();
+            v.setCellFactory(TreeViewChecks::plainCell);
+            root = v.setRootItem("root");
+            for (int i = 0; i < 5; i++) {
+                TreeItem<String> child = new TreeItem<>("child " + i);
+                for (int j = 0; j < 3; j++)
+                    child.childrenProperty.add(new TreeItem<>("child " + i + "." + j));
+                child.showChildrenProperty.set(true);
+                root.childrenProperty.add(child);
+            }
+            root.showChildrenProperty.set(true);
+            show(v, 300, 400);
+            return v;
+        });
+
+        TreeItem<String> hidden = fx(() -> {
+            TreeItem<String> first = root.childrenProperty.get(0);
+            TreeItem<String> grandchild = first.childrenProperty.get(0);
+            check(grandchild.currentCellProperty.get() != null, "grandchild bound before the collapse");
+            first.showChildrenProperty.set(false);
+            view.pseudoClassPolicy.set(PseudoClassPolicy.ALL);
+            view.pseudoClassPolicy.set(PseudoClassPolicy.PARITY);
+            view.pseudoClassPolicy.set(PseudoClassPolicy.ALL);
+            return grandchild;
+        });
+
+        fx(() -> {
+            TreeCell<String> stale = hidden.currentCellProperty.get();
+            if (stale != null) {
+                check(stale.getPseudoClassStates().stream().noneMatch(c -> c.getPseudoClassName().startsWith("v-")), "hidden item's cell kept a v- class");
+                check(!stale.getPseudoClassStates().contains(PseudoClass.getPseudoClass("odd")), "hidden item's cell kept odd");
+                check(!stale.getPseudoClassStates().contains(PseudoClass.getPseudoClass("even")), "hidden item's cell kept even");
+            }
+            view.layout();
+            TreeItem<String> second = root.childrenProperty.get(1);
+            TreeCell<String> cell = second.currentCellProperty.get();
+            check(cell != null, "second child bound after the collapse");
+            if (cell != null)
+                check(cell.getPseudoClassStates().contains(PseudoClass.getPseudoClass("v-" + second.visibleIndexProperty.get())), "visible cell has its v- class");
+            return null;
+        });
+        finish("PseudoClassPolicyTest");
+    }
+}
@@ -0,0 +1,144 @@
+package org.yetyman.controls.treeview;
+
+import java.util.List;
+
+import static org.yetyman.controls.treeview.TreeViewChecks.*;
+
+/**
+ * two views over one {@link ArrayTreeModel}, each with its own {@link ViewExpansionModel}, opening different branches.
+ * the shared tree grows by a couple hundred thousand nodes under both, and each view's rows are checked against a walk
+ * of the tree with its own expansion. then models expanded before they're listened to, and a chain too deep to recurse
+ */
+public class SharedModelTest {
+    private static final int APPENDS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        start();
+        ArrayTreeModel<String> shared = new ArrayTreeModel<>("root");
+        int[] branches = new int[3];
+        for (int b = 0; b < branches.length; b++) {
+            branches[b] = shared.addChild(shared.root(), "n" + b);
+            for (int c = 0; c < 3; c++)
+                shared.addChild(branches[b], "n" + b + "." + c);
+        }
+        ViewExpansionModel<String> left = new ViewExpansionModel<>(shared);
+        ViewExpansionModel<String> right = new ViewExpansionModel<>(shared);
+        TreeView<String> leftView = fx(() -> newView(left));
+        TreeView<String> rightView = fx(() -> newView(right));
+
+        fx(() -> {
+            left.setExpanded(left.root(), true);
+            left.setExpanded(branches[0], true);
+            right.setExpanded(right.root(), true);
+            right.setExpanded(branches[1], true);
+            leftView.layout();
+            rightView.layout();
+            check(values(leftView).equals(List.of("root", "n0", "n0.0", "n0.1", "n0.2", "n1", "n2")), "left rows " + values(leftView));
+            check(values(rightView).equals(List.of("root", "n0", "n1", "n1.0", "n1.1", "n1.2", "n2")), "right rows " + values(rightView));
+            check(!shared.isExpanded(branches[0]) && !shared.isExpanded(branches[1]), "the shared model kept its own expansion");
+            return null;
+        });
+
+        long millis = fx(() -> {
+            long start = System.nanoTime();
+            for (int i = 0; i < APPENDS; i++)
+                shared.addChild(branches[i % 2], "added " + i);
+            long took = (System.nanoTime() - start) / 1_000_000;
+            leftView.layout();
+            rightView.layout();
+            return took;
+        });
+        System.out.println(APPENDS + " appends under both views took " + millis + "ms");
+        check(millis < 5000, "appends took " + millis + "ms");
+
+        fx(() -> {
+            for (ViewExpansionModel<String> view : List.of(left, right)) {
+                int[] rows = walk(view);
+                check(view.visibleDescendantCount(view.root()) == rows.length - 1, "row count " + view.visibleDescendantCount(view.root()) + " of " + (rows.length - 1));
+                for (int i = 0; i < rows.length; i += 997) {
+                    check(view.nodeAtVisibleIndex(i) == rows[i], "node at row " + i);
+                    check(view.visibleIndex(rows[i]) == i, "row of node " + rows[i]);
+                }
+            }
+            //removing from the middle of a wide branch
+            shared.remove(shared.childAt(branches[0], 1000));
+            shared.remove(shared.lastChild(branches[1]));
+            for (ViewExpansionModel<String> view : List.of(left, right)) {
+                int[] rows = walk(view);
+                check(view.visibleDescendantCount(view.root()) == rows.length - 1, "row count after removing");
+                for (int i = 0; i < rows.length; i += 997)
+                    check(view.nodeAtVisibleIndex(i) == rows[i] && view.visibleIndex(rows[i]) == i, "row " + i + " after removing");
+            }
+            leftView.layout();
+            rightView.layout();
+            return null;
+        });
+        expandedBeforeListening();
+        deepChain();
+        finish("SharedModelTest");
+    }
+
+    /**
+     * counts taken before a view listens to the shared model have to be dropped once it starts
+     */
+    private static void expandedBeforeListening() {
+        ArrayTreeModel<String> shared = new ArrayTreeModel<>("root");
+        ViewExpansionModel<String> view = new ViewExpansionModel<>(shared);
+        view.setExpanded(view.root(), true);
+        check(view.visibleDescendantCount(view.root()) == 0, "nothing under the root yet");
+        for (int i = 0; i < 5; i++)
+            shared.addChild(shared.root(), "child " + i);
+        view.addListener(node -> {
+        });
+        check(view.visibleDescendantCount(view.root()) == 5, "rows after listening " + view.visibleDescendantCount(view.root()));
+        check(view.nodeAtVisibleIndex(3) == shared.childAt(shared.root(), 2), "node at row 3 after listening");
+    }
+
+    /**
+     * an expanded chain deeper than the stack could recurse through, counted cold
+     */
+    private static void deepChain() {
+        ArrayTreeModel<String> shared = new ArrayTreeModel<>("root");
+        ViewExpansionModel<String> view = new ViewExpansionModel<>(shared);
+        int leaf = shared.root();
+        for (int depth = 0; depth < 50_000; depth++) {
+            view.setExpanded(leaf, true);
+            leaf = shared.addChild(leaf, "depth " + depth);
+        }
+        view.addListener(node -> {
+        });
+        try {
+            check(view.visibleDescendantCount(view.root()) == 50_000, "deep row count " + view.visibleDescendantCount(view.root()));
+            check(view.nodeAtVisibleIndex(50_000) == leaf, "deep node at the last row");
+            check(view.visibleIndex(leaf) == 50_000, "deep row of the leaf");
+        } catch (StackOverflowError e) {
+            check(false, "counting the deep chain overflowed the stack");
+        }
+    }
+
+    private static TreeView<String> newView(TreeModel<String> model) {
+        TreeView<String> v = new TreeView<>();
+        v.setCellFactory(TreeViewChecks::plainCell);
+        v.setModel(model);
+        show(v, 300, 400);
+        return v;
+    }
+
+    private static List<String> values(TreeView<String> view) {
+        return view.visibleItems.stream().map(i -> i.valueProperty.get()).toList();
+    }
+
+    /**
+     * every row's node in order, found by following the model's links with the view's expansion
+     */
+    private static int[] walk(TreeModel<String> model) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int n = model.root(); n != -1; n = model.nextVisible(n)) {
+            if (count == rows.length)
+                rows = java.util.Arrays.copyOf(rows, count * 2);
+            rows[count++] = n;
+        }
+        return java.util.Arrays.copyOf(rows, count);
+    }
+}
@@ -0,0 +1,81 @@
+package org.yetyman.controls.treeview;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import javafx.stage.Stage;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * what the check programs next to the demo share. each one starts the fx platform, runs its checks on the fx thread
+ * and exits with the number of checks that failed
+ */
+class TreeViewChecks {
+    private static int failures;
+
+    static void start() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(() -> {
+            //listeners that throw are only reported to the thread's handler, so count those as failures too
+            Thread.currentThread().setUncaughtExceptionHandler((thread, e) -> {
+                check(false, "fx thread threw " + e);
+                e.printStackTrace(System.out);
+            });
+            started.countDown();
+        });
+        started.await();
+    }
+
+    static <R> R fx(Callable<R> call) throws Exception {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(call.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get(60, TimeUnit.SECONDS);
+    }
+
+    static void check(boolean passed, String description) {
+        if (!passed) {
+            failures++;
+            System.out.println("FAILED " + description);
+        }
+    }
+
+    static void finish(String name) {
+        System.out.println(name + (failures == 0 ? " passed" : " failed " + failures + " checks"));
+        Platform.exit();
+        System.exit(failures);
+    }
+
+    /**
+     * cells of a fixed size that only draw a rectangle, so checks don't depend on fonts
+     */
+    static <T> TreeCell<T> plainCell(TreeView<T> view) {
+        return new TreeCell<>() {
+            {
+                setContent(new Rectangle(40, 16));
+            }
+
+            @Override
+            public void updateVisuals(T value, TreeItem<T> wrapper) {
+            }
+        };
+    }
+
+    static Stage show(Region content, double width, double height) {
+        Stage stage = new Stage();
+        stage.setScene(new Scene(content, width, height));
+        stage.show();
+        content.layout();
+        return stage;
+    }
+}
@@ -134,7 +134,7 @@ public class TreeViewTestController extends GridPane {
 
             @Override
             public void showDirections(Something value, List<OrthoDirection> directions, TreeItem<Something> parentItem, TreeItem<Something> rowItem) {
-                left.setBorder(rowItem != null && !rowItem.childrenProperty.isEmpty() ? null : b1);
+                left.setBorder(rowItem != null && rowItem.hasChildren() ? null : b1);
             }
 
             @Override
@@ -205,7 +205,7 @@ public class TreeViewTestController extends GridPane {
         });
 
         TreeItem<Something> root = treeView.setRootItem(new Something("root"));
-        populateTree(root);
+        TreeItem.batch(() -> populateTree(root));
 
         return treeView;
     }